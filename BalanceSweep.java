@@ -0,0 +1,243 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Sweeps a grid of balance parameters: every combination of the given values is played
+ * by the scripted player for a number of games, spread over all cores, and one table row
+ * of win rate and game length is written per combination.
+ * Every grid point plays the same game seeds, so differences between rows come from the
+ * parameters rather than from luck.
+ *
+ * Usage: java BalanceSweep [name=values...]
+ * where values is a list (0.1,0.15,0.2) or a range from:to:step (3:9:1), for the parameters
+ * skillChance, teleportChance, moveAttempts, passwords, weaknesses, counterItems, manuscripts
+ * and emptyBoxes (classic value if omitted), and the options games=1000, threads=all cores,
+ * maxTurns=500, seed=1, hunt=false and out=FILE (standard output if omitted).
+ */
+public class BalanceSweep {
+    private static final String[] PARAMETERS = {"skillChance", "teleportChance", "moveAttempts",
+            "passwords", "weaknesses", "counterItems", "manuscripts", "emptyBoxes"};
+
+    /** Games played by one task; points with more games are split so small grids still use every core. */
+    private static final int CHUNK = 500;
+
+    private double[][] values = new double[PARAMETERS.length][];
+    private int gamesPerPoint = 1000;
+    private int maxTurns = 500;
+    private long seed = 1;
+    private boolean hunting = false;
+
+    /**
+     * Constructs a sweep over the classic values only; use setValues to widen it.
+     */
+    public BalanceSweep() {
+        GameConfig classic = new GameConfig();
+        for (int p = 0; p < PARAMETERS.length; p++) {
+            values[p] = new double[] { get(classic, p) };
+        }
+    }
+
+    /**
+     * Runs a sweep from the command line.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        BalanceSweep sweep = new BalanceSweep();
+        int threads = Runtime.getRuntime().availableProcessors();
+        String outFile = null;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected name=value: " + arg);
+            }
+            String name = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (name) {
+                case "games": sweep.gamesPerPoint = Integer.parseInt(value); break;
+                case "threads": threads = Integer.parseInt(value); break;
+                case "maxTurns": sweep.maxTurns = Integer.parseInt(value); break;
+                case "seed": sweep.seed = Long.parseLong(value); break;
+                case "hunt": sweep.hunting = Boolean.parseBoolean(value); break;
+                case "out": outFile = value; break;
+                default: sweep.setValues(name, parseValues(value)); break;
+            }
+        }
+
+        long start = System.nanoTime();
+        SimulationStats[] results = sweep.run(threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        if (outFile == null) {
+            sweep.writeTable(System.out, results);
+        } else {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(Paths.get(outFile)))) {
+                sweep.writeTable(out, results);
+            }
+        }
+        System.err.printf("%d points x %d games on %d threads in %.1f s%n",
+                results.length, sweep.gamesPerPoint, threads, seconds);
+    }
+
+    /**
+     * Sets the values a parameter takes in the grid.
+     * @param parameter One of the parameter names listed in the class comment.
+     * @param parameterValues The values; integer parameters are rounded.
+     */
+    public void setValues(String parameter, double[] parameterValues) {
+        for (int p = 0; p < PARAMETERS.length; p++) {
+            if (PARAMETERS[p].equals(parameter)) {
+                values[p] = parameterValues.clone();
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Unknown parameter: " + parameter);
+    }
+
+    /**
+     * @return The number of grid points (parameter combinations).
+     */
+    public int getPointCount() {
+        long points = 1;
+        for (double[] v : values) {
+            points *= v.length;
+            if (points > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("The grid has too many points.");
+            }
+        }
+        return (int) points;
+    }
+
+    /**
+     * Builds the config of one grid point. The last parameter varies fastest.
+     * @param point The index of the point, from 0 to getPointCount() - 1.
+     * @return The config of that point.
+     */
+    public GameConfig getConfig(int point) {
+        GameConfig config = new GameConfig();
+        for (int p = PARAMETERS.length - 1; p >= 0; p--) {
+            set(config, p, values[p][point % values[p].length]);
+            point /= values[p].length;
+        }
+        return config;
+    }
+
+    /**
+     * Plays every grid point in parallel.
+     * @param threads The number of worker threads.
+     * @return The statistics of each grid point, by point index.
+     */
+    public SimulationStats[] run(int threads) throws InterruptedException, ExecutionException {
+        int points = getPointCount();
+        GameConfig[] configs = new GameConfig[points];
+        for (int i = 0; i < points; i++) {
+            configs[i] = getConfig(i);
+        }
+
+        int chunks = (gamesPerPoint + CHUNK - 1) / CHUNK;
+        SimulationStats[] partial = new SimulationStats[points * chunks];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(() -> IntStream.range(0, partial.length).parallel().forEach(task -> {
+                GameConfig config = configs[task / chunks];
+                int first = (task % chunks) * CHUNK;
+                int last = Math.min(gamesPerPoint, first + CHUNK);
+                SimulationStats stats = new SimulationStats();
+                for (int i = first; i < last; i++) {
+                    stats.record(Simulation.playOne(seed + i, maxTurns, hunting, null, config));
+                }
+                partial[task] = stats;
+            })).get();
+        } finally {
+            pool.shutdown();
+        }
+
+        SimulationStats[] results = new SimulationStats[points];
+        for (int i = 0; i < points; i++) {
+            results[i] = new SimulationStats();
+            for (int c = 0; c < chunks; c++) {
+                results[i].merge(partial[i * chunks + c]);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Writes one CSV row per grid point: the parameters, then win rate and game length.
+     * @param out The stream to write to.
+     * @param results The statistics returned by run.
+     */
+    public void writeTable(PrintStream out, SimulationStats[] results) {
+        out.println(String.join(",", PARAMETERS) + ",games,winRate,avgTurns,avgTurnsToWin,unfinishedRate");
+        for (int i = 0; i < results.length; i++) {
+            GameConfig config = getConfig(i);
+            StringBuilder row = new StringBuilder();
+            for (int p = 0; p < PARAMETERS.length; p++) {
+                double v = get(config, p);
+                row.append(p < 2 ? String.valueOf(v) : String.valueOf((int) v)).append(',');
+            }
+            SimulationStats stats = results[i];
+            row.append(stats.getGames()).append(',')
+               .append(String.format("%.4f,%.2f,%.2f,%.4f", stats.getWinRate(), stats.getAverageTurns(),
+                       stats.getAverageTurnsToWin(), stats.getUnfinishedRate()));
+            out.println(row);
+        }
+    }
+
+    /**
+     * Parses a list "a,b,c" or a range "from:to:step".
+     */
+    static double[] parseValues(String text) {
+        if (text.contains(":")) {
+            String[] range = text.split(":");
+            double from = Double.parseDouble(range[0]);
+            double to = Double.parseDouble(range[1]);
+            double step = range.length > 2 ? Double.parseDouble(range[2]) : 1;
+            if (step <= 0 || to < from) {
+                throw new IllegalArgumentException("Invalid range: " + text);
+            }
+            int count = (int) Math.floor((to - from) / step + 1e-9) + 1;
+            double[] result = new double[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = from + i * step;
+            }
+            return result;
+        }
+        String[] parts = text.split(",");
+        double[] result = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Double.parseDouble(parts[i]);
+        }
+        return result;
+    }
+
+    private static double get(GameConfig config, int parameter) {
+        switch (parameter) {
+            case 0: return config.getSkillChance();
+            case 1: return config.getTeleportChance();
+            case 2: return config.getMoveAttempts();
+            case 3: return config.getPasswords();
+            case 4: return config.getWeaknesses();
+            case 5: return config.getCounterItems();
+            case 6: return config.getManuscripts();
+            default: return config.getEmptyBoxes();
+        }
+    }
+
+    private static void set(GameConfig config, int parameter, double value) {
+        int count = (int) Math.round(value);
+        switch (parameter) {
+            case 0: config.setSkillChance(value); break;
+            case 1: config.setTeleportChance(value); break;
+            case 2: config.setMoveAttempts(count); break;
+            case 3: config.setPasswords(count); break;
+            case 4: config.setWeaknesses(count); break;
+            case 5: config.setCounterItems(count); break;
+            case 6: config.setManuscripts(count); break;
+            default: config.setEmptyBoxes(count); break;
+        }
+    }
+}
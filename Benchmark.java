@@ -0,0 +1,383 @@
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Micro-benchmarks for the hot paths of the game: map generation, item distribution,
+ * box lookup and the Box Girl's movement and passive triggers.
+ * Each benchmark is warmed up first, then reports the average time (ns/op) and the
+ * bytes allocated by the benchmark thread (B/op).
+ * Snapshot save/load is measured on a mid-game state, together with its encoded size.
+ * The packed engine (PackedGame) is measured against the object graph, per turn, per whole
+ * game and in heap retained per live game. Starting a game is measured with and without a MapPool.
+ * The classic villa is always measured; each extra room count adds a large generated
+ * mansion, reporting its generation time and retained heap per room and re-running the
+ * map-dependent benchmarks on it.
+ * Usage: java Benchmark [warmupMillis] [measureMillis] [roomCount...]
+ */
+public class Benchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    /** The number of Box Girls in the crowded large-map benchmark. */
+    private static final int HUNTERS = 400;
+    /** The number of live games the retained heap per game is averaged over. */
+    private static final int GAMES_KEPT = 20_000;
+    /** The size of the map pool in the game start benchmark. */
+    private static final int POOL_SIZE = 4096;
+
+    /** Results are folded into this field so the JIT cannot drop the measured work. */
+    static long sink;
+
+    private long warmupMillis;
+    private long measureMillis;
+
+    /**
+     * Constructs a benchmark runner.
+     * @param warmupMillis How long each benchmark runs before measuring.
+     * @param measureMillis How long each benchmark is measured for.
+     */
+    public Benchmark(long warmupMillis, long measureMillis) {
+        this.warmupMillis = warmupMillis;
+        this.measureMillis = measureMillis;
+    }
+
+    /**
+     * Runs every benchmark and prints one line per benchmark.
+     */
+    public static void main(String[] args) {
+        long warmup = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        long measure = args.length > 1 ? Long.parseLong(args[1]) : 2000;
+        Benchmark benchmark = new Benchmark(warmup, measure);
+        benchmark.runAll();
+        for (int i = 2; i < args.length; i++) {
+            benchmark.runLargeMap(Integer.parseInt(args[i]));
+        }
+    }
+
+    /**
+     * Runs all benchmarks against freshly initialized silent games.
+     */
+    public void runAll() {
+        System.out.printf("%-40s %14s %12s%n", "Benchmark", "ns/op", "B/op");
+
+        SplittableRandom random = new SplittableRandom(1);
+        run("GameMap.generateRandomMap", () -> {
+            GameMap map = new GameMap(Simulation.SILENT, random.split());
+            map.generateRandomMap();
+            sink += map.getRoom("Basement").getBoxes().size();
+        });
+
+        Game game = newGame(1);
+        GameMap map = game.getMap();
+        ItemCatalogue items = ItemCatalogue.of(new GameConfig());
+        run("GameMap.distributeItems", () -> map.distributeItems(items));
+        run("GameMap.getAllBoxes", () -> sink += map.getAllBoxes().size());
+
+        Player player = game.getPlayer();
+        BoxGirl boxGirl = game.getBoxGirl();
+        run("BoxGirl.randomMove", () -> sink += boxGirl.randomMove(game, player, 7) ? 1 : 0);
+        run("BoxGirl.checkPassiveTriggers", () -> boxGirl.checkPassiveTriggers(player, game));
+        Room hall = map.getRoom("First Floor Hall");
+        run("Room.scrambleBoxes", () -> hall.scrambleBoxes(false, random));
+        run("Game.addItemToRandomBox", () -> game.addItemToRandomBox(items.get(1)));
+
+        GameMap emptyMap = new GameMap(Simulation.SILENT, random.split());
+        emptyMap.generateRandomMap();
+        run("GameMap.getRandomFreeBox", () -> sink += emptyMap.getRandomFreeBox(random).getId());
+
+        // Only the First Floor Hall keeps closed boxes, so most moves need the retry recursion.
+        Game sparse = newGame(2);
+        for (Box box : sparse.getMap().getAllBoxes()) {
+            if (!sparse.getMap().getRoom("First Floor Hall").getBoxes().contains(box)) {
+                box.open();
+            }
+        }
+        run("BoxGirl.randomMove (mostly opened)",
+                () -> sink += sparse.getBoxGirl().randomMove(sparse, sparse.getPlayer(), 7) ? 1 : 0);
+
+        Game opened = newGame(4);
+        for (Box box : opened.getMap().getAllBoxes()) {
+            box.open();
+        }
+        run("BoxGirl.randomMove (all opened)",
+                () -> sink += opened.getBoxGirl().randomMove(opened, opened.getPlayer(), 7) ? 1 : 0);
+
+        // A player who only walks never ends the game, so every op is a steady-state turn:
+        // parse the move, move, and run the Box Girls' passive triggers.
+        Game walking = newGame(new CommandSource() {
+            private boolean askDirection;
+            @Override
+            public String nextLine(Game g) {
+                askDirection = !askDirection;
+                if (!askDirection) {
+                    Room room = g.getPlayer().getCurrentRoom();
+                    return room.getExit((int) (sink++ % room.getExitCount())).name();
+                }
+                return "move";
+            }
+        }, 3);
+        run("Game turn (move + passive triggers)", walking::playTurn);
+        // The same walk chosen by a typed strategy instead of parsed commands.
+        Game strategyWalk = new Game(null, Simulation.SILENT, 3);
+        strategyWalk.setQuiet(true);
+        strategyWalk.setStrategy(view -> PlayerAction.move(view.getExit((int) (sink++ % view.getExitCount()))));
+        strategyWalk.simulate(0);
+        run("Game turn (strategy move)", strategyWalk::playTurn);
+
+        walking.setMetrics(new GameMetrics());
+        run("Game turn (with metrics)", walking::playTurn);
+        walking.setMetrics(new GameMetrics(16));
+        run("Game turn (metrics, 1/16 timed)", walking::playTurn);
+        walking.setMetrics(null);
+
+        // The packed engine on the layout of the strategy walk's map, walking the same way.
+        PackedLayout layout = PackedLayout.of(strategyWalk.getMap());
+        ItemCatalogue packedItems = ItemCatalogue.of(new GameConfig());
+        PackedGame packedWalk = new PackedGame(layout, packedItems, 3);
+        packedWalk.setStrategy(view -> PlayerAction.move(view.getExit((int) (sink++ % view.getExitCount()))));
+        packedWalk.simulate(0);
+        run("PackedGame turn (strategy move)", packedWalk::playTurn);
+
+        // Whole games by the greedy bot: a Game generates its map, packed games share one layout.
+        long[] seeds = {0};
+        run("Game (greedy bot, whole game)", () -> {
+            Game g = new Game(null, Simulation.SILENT, seeds[0]++);
+            g.setQuiet(true);
+            g.setStrategy(new GreedyExplorerStrategy(new SplittableRandom(seeds[0])));
+            g.simulate(500);
+            sink += g.getTurnCount();
+        }, 1);
+        run("PackedGame (greedy bot, whole game)", () -> {
+            PackedGame g = new PackedGame(layout, packedItems, seeds[0]++);
+            g.setStrategy(new GreedyExplorerStrategy(new SplittableRandom(seeds[0])));
+            g.simulate(500);
+            sink += g.getTurnCount();
+        }, 1);
+        // Starting a game: generating its map on the spot, or taking a ready layout from a pool.
+        run("Game start (generates map)", () -> sink += startGame(seeds[0]++, null), 1);
+        runPooledStart();
+
+        retained("Game", () -> {
+            Game g = new Game(null, Simulation.SILENT, seeds[0]++);
+            g.setQuiet(true);
+            g.setStrategy(view -> null);
+            g.simulate(0);
+            return g;
+        });
+        retained("PackedGame", () -> {
+            PackedGame g = new PackedGame(layout, packedItems, seeds[0]++);
+            g.setStrategy(view -> null);
+            g.simulate(0);
+            return g;
+        });
+
+        ByteBuffer snapshot = GameSnapshot.save(walking);
+        System.out.printf("%-40s %14d %12s%n", "GameSnapshot size (bytes)", snapshot.remaining(), "");
+        run("GameSnapshot.save", () -> sink += GameSnapshot.save(walking).remaining());
+        run("GameSnapshot.load", () -> sink += GameSnapshot.load(snapshot.duplicate(), g -> "quit", Simulation.SILENT).getTurnCount());
+    }
+
+    /**
+     * Generates a large mansion with the given number of rooms, reports generation time and
+     * heap per room, then measures the map-dependent hot paths on it.
+     * @param roomCount The approximate number of rooms (split over floors of about 1000 rooms).
+     */
+    public void runLargeMap(int roomCount) {
+        int floors = Math.max(3, roomCount / 1000);
+        int roomsPerFloor = Math.max(2, roomCount / floors);
+        SplittableRandom random = new SplittableRandom(roomCount);
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        GameMap map = new GameMap(Simulation.SILENT, random.split());
+        map.setQuiet(true);
+        map.generateLargeMap(floors, roomsPerFloor);
+        long elapsed = System.nanoTime() - start;
+        System.gc();
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+        int rooms = map.getRooms().size();
+
+        System.out.printf("%n--- %d rooms (%d floors x %d) ---%n", rooms, floors, roomsPerFloor);
+        System.out.printf("%-40s %10.1f ms %10.1f ns/room %10.1f B/room%n", "GameMap.generateLargeMap",
+                elapsed / 1e6, (double) elapsed / rooms, (double) (heapAfter - heapBefore) / rooms);
+
+        // A game started from a map pool finds its mansion already generated and furnished.
+        try (MapPool pool = new MapPool(new GameConfig(), m -> m.generateLargeMap(floors, roomsPerFloor),
+                1, 1, null, roomCount)) {
+            while (pool.getDepth() < 1) {
+                LockSupport.parkNanos(1_000_000);
+            }
+            pool.stop();
+            long startNanos = System.nanoTime();
+            MapPool.Layout layout = pool.take();
+            sink += startGame(layout.getSeed(), layout);
+            System.out.printf("%-40s %10.3f ms%n", "Game start (pooled map)", (System.nanoTime() - startNanos) / 1e6);
+        }
+
+        Game game = new Game(new ScriptedPlayer(random.split()), Simulation.SILENT, roomCount);
+        game.setQuiet(true);
+        game.simulate(map, 0);
+        ItemCatalogue items = ItemCatalogue.of(new GameConfig());
+        run("GameMap.distributeItems", () -> map.distributeItems(items), 1);
+        run("GameMap.getAllBoxes", () -> sink += map.getAllBoxes().size());
+        run("BoxGirl.randomMove", () -> sink += game.getBoxGirl().randomMove(game, game.getPlayer(), 7) ? 1 : 0);
+        run("BoxGirl.checkPassiveTriggers", () -> game.getBoxGirl().checkPassiveTriggers(game.getPlayer(), game));
+        run("Game.addItemToRandomBox", () -> game.addItemToRandomBox(items.get(1)));
+
+        game.setHuntingMode(true);
+        run("BoxGirl.randomMove (hunting)", () -> sink += game.getBoxGirl().randomMove(game, game.getPlayer(), 7) ? 1 : 0);
+        Room target = map.getRooms().get(map.getRooms().size() - 1);
+        run("PathFinder.nextStep (cached tree)", () -> sink += map.getPathFinder().nextStep(game.getBoxGirl().getCurrentRoom(), target) == null ? 0 : 1);
+
+        // Hundreds of hunters on a fresh map of the same size: a turn only visits the ones due to act.
+        GameMap crowdedMap = new GameMap(Simulation.SILENT, random.split());
+        crowdedMap.setQuiet(true);
+        crowdedMap.generateLargeMap(floors, roomsPerFloor);
+        Game crowded = new Game(null, Simulation.SILENT, roomCount);
+        crowded.setQuiet(true);
+        // Without teleports the hunters stay spread out instead of piling up around the walking player.
+        GameConfig spread = new GameConfig();
+        spread.setTeleportChance(0);
+        crowded.setConfig(spread);
+        crowded.setStrategy(view -> PlayerAction.move(view.getExit((int) (sink++ % view.getExitCount()))));
+        crowded.simulate(crowdedMap, 0);
+        List<Room> crowdedRooms = crowdedMap.getRooms();
+        for (int i = 1; i < HUNTERS; i++) {
+            new BoxGirl(crowdedRooms.get(random.nextInt(crowdedRooms.size())), null, crowded);
+        }
+        run("Game turn (" + HUNTERS + " hunters, every turn)", crowded::playTurn);
+        HunterRegistry hunters = crowded.getHunters();
+        for (int i = 0; i < hunters.size(); i++) {
+            hunters.get(i).setPeriod(8);
+        }
+        run("Game turn (" + HUNTERS + " hunters, every 8th)", crowded::playTurn);
+    }
+
+    /**
+     * Reports the heap retained by one initialized game, averaged over many live games.
+     * @param name The kind of game printed in the report.
+     * @param newGame Creates and initializes one game.
+     */
+    private static void retained(String name, Supplier<Object> newGame) {
+        Object[] games = new Object[GAMES_KEPT];
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        for (int i = 0; i < games.length; i++) {
+            games[i] = newGame.get();
+        }
+        System.gc();
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+        sink += games.length;
+        System.out.printf("%-40s %14s %12d%n", name + " retained heap (B/game)", "", (heapAfter - heapBefore) / games.length);
+    }
+
+    /**
+     * Measures starting games on layouts taken from a MapPool. The pool is filled first, half of
+     * it warms up and half is measured with the producer stopped, so every take is a hit and
+     * nothing competes for the CPU.
+     */
+    private void runPooledStart() {
+        try (MapPool pool = new MapPool(new GameConfig(), GameMap::generateRandomMap,
+                POOL_SIZE, POOL_SIZE, null, 1)) {
+            while (pool.getDepth() < POOL_SIZE) {
+                LockSupport.parkNanos(1_000_000);
+            }
+            for (int i = 0; i < POOL_SIZE / 2; i++) {
+                MapPool.Layout layout = pool.take();
+                sink += startGame(layout.getSeed(), layout);
+            }
+            pool.stop();
+            long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < POOL_SIZE / 2; i++) {
+                MapPool.Layout layout = pool.take();
+                sink += startGame(layout.getSeed(), layout);
+            }
+            long elapsed = System.nanoTime() - start;
+            long bytes = THREADS.getCurrentThreadAllocatedBytes() - bytesBefore;
+            System.out.printf("%-40s %14.1f %12.1f%n", "Game start (pooled map, " + pool.getMisses() + " misses)",
+                    (double) elapsed / (POOL_SIZE / 2), (double) bytes / (POOL_SIZE / 2));
+        }
+    }
+
+    /**
+     * Starts a silent game driven by no one, on a fresh map or a pooled layout.
+     * @return The game's turn count, for the sink.
+     */
+    private static int startGame(long seed, MapPool.Layout layout) {
+        Game game = new Game(null, Simulation.SILENT, seed);
+        game.setQuiet(true);
+        game.setStrategy(view -> null);
+        if (layout != null) {
+            game.setLayout(layout);
+        }
+        game.simulate(0);
+        return game.getTurnCount();
+    }
+
+    /**
+     * Creates a silent game that has been initialized but has not played any turns.
+     */
+    private static Game newGame(long seed) {
+        return newGame(new ScriptedPlayer(new SplittableRandom(seed)), seed);
+    }
+
+    /**
+     * Creates a quiet game driven by the given command source that has not played any turns.
+     */
+    private static Game newGame(CommandSource input, long seed) {
+        Game game = new Game(input, Simulation.SILENT, seed);
+        game.setQuiet(true);
+        game.simulate(0);
+        return game;
+    }
+
+    /**
+     * Warms up and then measures a single benchmark.
+     * @param name The name printed in the report.
+     * @param op The operation to measure.
+     */
+    private void run(String name, Runnable op) {
+        run(name, op, 1000);
+    }
+
+    /**
+     * Warms up and then measures a single benchmark.
+     * @param name The name printed in the report.
+     * @param op The operation to measure.
+     * @param batch How many operations run between clock checks (1 for slow operations).
+     */
+    private void run(String name, Runnable op, int batch) {
+        loopFor(op, warmupMillis, batch);
+
+        long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long ops = loopFor(op, measureMillis, batch);
+        long elapsed = System.nanoTime() - start;
+        long bytes = THREADS.getCurrentThreadAllocatedBytes() - bytesBefore;
+
+        System.out.printf("%-40s %14.1f %12.1f%n", name, (double) elapsed / ops, (double) bytes / ops);
+    }
+
+    /**
+     * Repeats an operation in batches until the time budget is spent.
+     * @return The number of operations performed.
+     */
+    private static long loopFor(Runnable op, long millis, int batch) {
+        long deadline = System.nanoTime() + millis * 1_000_000;
+        long ops = 0;
+        do {
+            for (int i = 0; i < batch; i++) {
+                op.run();
+            }
+            ops += batch;
+        } while (System.nanoTime() < deadline);
+        return ops;
+    }
+}
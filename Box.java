@@ -2,17 +2,27 @@
  * Represents a box that can contain an item and potentially hide the Box Girl.
  */
 public class Box {
-    private static int nextId = 1;
     private int id;
     private boolean isOpen = false;
-    private Item content;
+    private int content = 0;
     private BoxGirl hiddenOccupant = null;
+    private Room room;
+    private int slot;
+    private GameMap map;
+    private int freeSlot = -1;
+    private long stateKey = 0;
 
     /**
-     * Constructs a new box with a unique ID.
+     * Constructs a new box.
+     * @param id The ID of the box, unique within its game (allocated by GameMap).
+     * @param room The room holding the box, whose indexes track it; null for a standalone box.
+     * @param slot The position of the box within its room.
      */
-    public Box() {
-        this.id = nextId++;
+    public Box(int id, Room room, int slot) {
+        this.id = id;
+        this.room = room;
+        this.slot = slot;
+        this.map = room == null ? null : room.getMap();
     }
 
     /**
@@ -25,7 +35,8 @@ public class Box {
             return null;
         }
         isOpen = true;
-        return this.content;
+        updateIndex();
+        return getContent();
     }
 
     /**
@@ -36,19 +47,34 @@ public class Box {
     /**
      * Set the BoxGirl as hiding inside this box.
      */
-    public void setHiddenOccupant(BoxGirl bg) { this.hiddenOccupant = bg; }
+    public void setHiddenOccupant(BoxGirl bg) {
+        this.hiddenOccupant = bg;
+        updateIndex();
+    }
 
     /**
      * Clear any BoxGirl hiding in this box.
      */
-    public void clearHiddenOccupant() { this.hiddenOccupant = null; }
+    public void clearHiddenOccupant() {
+        this.hiddenOccupant = null;
+        updateIndex();
+    }
 
     /**
-     * Sets the content of the box. Used during map generation and the 'Moving Around' skill.
-     * @param content The item to place inside the box.
+     * Sets the content of the box.
+     * @param content An item of the map's catalogue, or null.
      */
     public void setContent(Item content) {
+        setContentId(content == null ? 0 : map.getCatalogue().idOf(content));
+    }
+
+    /**
+     * Sets the content of the box by item ID. Used during map generation and the 'Moving Around' skill.
+     * @param content The ID of the item in the map's catalogue, or 0 for none.
+     */
+    public void setContentId(int content) {
         this.content = content;
+        updateIndex();
     }
 
     /**
@@ -57,11 +83,83 @@ public class Box {
     public void close() {
         if (this.hiddenOccupant != null) return;
 
-        if (this.content == null || !this.content.getName().equals("Empty Box")) {
+        if (content == 0 || map.getCatalogue().kind(content) != ItemCatalogue.EMPTY) {
             this.isOpen = false;
+            updateIndex();
         }
     }
 
+    /**
+     * Restores the open flag and content of the box when a saved game is loaded.
+     * @param open True if the box had been opened.
+     * @param content The ID of the item inside the box, or 0.
+     */
+    void restoreState(boolean open, int content) {
+        restoreState(open, content, hiddenOccupant);
+    }
+
+    /**
+     * Puts the box back into a saved state, including who hides in it, updating the indexes once.
+     * @param open True if the box was opened.
+     * @param content The ID of the item inside, or 0.
+     * @param occupant The Box Girl hiding inside, or null.
+     */
+    void restoreState(boolean open, int content, BoxGirl occupant) {
+        this.isOpen = open;
+        this.content = content;
+        this.hiddenOccupant = occupant;
+        updateIndex();
+    }
+
+    /**
+     * Tells the room and the map that this box may have become (or stopped being)
+     * free for a stolen item or hideable for the Box Girl, and updates the map's state key.
+     */
+    private void updateIndex() {
+        if (map != null) {
+            map.updateFreeBox(this);
+            room.updateHideable(this);
+            long key = ZobristKeys.box(id, isOpen, getContent(), hiddenOccupant != null);
+            map.toggleStateKey(stateKey ^ key);
+            stateKey = key;
+        }
+    }
+
+    /**
+     * @return True if the box is closed and nobody is hiding in it, so the Box Girl can hide here.
+     */
+    public boolean isHideable() {
+        return !isOpen && hiddenOccupant == null;
+    }
+
+    /**
+     * @return The position of the box within its room.
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * @return True if the box is closed and holds nothing, so a stolen item can be hidden in it.
+     */
+    public boolean isFree() {
+        return !isOpen && content == 0;
+    }
+
+    /**
+     * @return This box's position in the map's free-box index, or -1 if it is not in it.
+     */
+    int getFreeSlot() {
+        return freeSlot;
+    }
+
+    /**
+     * @param freeSlot This box's new position in the map's free-box index, or -1.
+     */
+    void setFreeSlot(int freeSlot) {
+        this.freeSlot = freeSlot;
+    }
+
     /**
      * @return The unique ID of the box.
      */
@@ -77,9 +175,16 @@ public class Box {
     }
 
     /**
-     * @return The item content of the box.
+     * @return The item content of the box, or null.
      */
     public Item getContent() {
+        return content == 0 ? null : map.getCatalogue().get(content);
+    }
+
+    /**
+     * @return The ID of the item in the box (see ItemCatalogue), or 0 if it is empty.
+     */
+    public int getContentId() {
         return content;
     }
 
@@ -90,12 +195,21 @@ public class Box {
      * @return True if the item was successfully placed, false otherwise.
      */
     public boolean putItem(Item item) {
+        return putItem(item == null ? 0 : map.getCatalogue().idOf(item));
+    }
+
+    /**
+     * Puts an item into this open box by ID, as putItem does.
+     * @param item The ID of the item in the map's catalogue.
+     * @return True if the item was successfully placed, false otherwise.
+     */
+    boolean putItem(int item) {
         if (!isOpen) {
             System.out.println("Action failed: The box is closed.");
             return false;
         }
 
-        this.content = item;
+        setContentId(item);
         // After placing an item, attempt to close the box so it becomes a reversible move.
         this.close();
         return true;
@@ -1,26 +1,38 @@
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.SplittableRandom;
 /**
  * Represents the BoxGirl that moves around the mansion and interacts with the player.
+ * A game may have several (see HunterRegistry); each registers herself when constructed.
  */
 public class BoxGirl {
     private Room currentRoom;
     private List<Manuscript> unlockedSkills;
-    private Random random = new Random();
+    private SplittableRandom random;
     private Box hiddenInBox = null;
+    private Game game;
+    private int moveAttempts;
+    private int number;
+    private int period = 1;
 
     /**
-     * Constructs a new BoxGirl.
+     * Constructs a new BoxGirl and registers her with the game's hunters.
      * @param startRoom The room where the Box Girl starts (e.g., Basement).
+     * @param startBox The box she is hiding in at the start; if another Box Girl already hides
+     *                 there, she starts in the room without hiding.
+     * @param game The main game instance.
      */
-    public BoxGirl(Room startRoom, Box startBox) {
+    public BoxGirl(Room startRoom, Box startBox, Game game) {
         this.currentRoom = startRoom;
-        this.hiddenInBox = startBox;
-        if (this.hiddenInBox != null) {
-            this.hiddenInBox.setHiddenOccupant(this);
-        }
+        this.game = game;
+        this.random = game.getRandom().split();
         this.unlockedSkills = new ArrayList<>();
+        this.number = game.getHunters().register(this);
+        toggleStateKey(ZobristKeys.girlRoom(number, startRoom));
+        if (startBox != null && startBox.getHiddenOccupant() == null) {
+            this.hiddenInBox = startBox;
+            startBox.setHiddenOccupant(this);
+        }
     }
 
     /**
@@ -30,18 +42,23 @@ public class BoxGirl {
      */
     public void checkPassiveTriggers(Player player, Game game) {
 
-        if (!unlockedSkills.isEmpty() && random.nextDouble() < 0.15) {
+        if (!unlockedSkills.isEmpty() && random.nextDouble() < game.getConfig().getSkillChance()) {
             Manuscript skill = unlockedSkills.get(random.nextInt(unlockedSkills.size()));
-            System.out.println("\n !!!! Resentment explodes around you! " + skill.getName() + " is activated!");
-            this.activateSkill(skill.getSkillName(), player, game);
+            if (game.getJournal() != null) {
+                game.getJournal().recordSkill(number, skill.getSkillName());
+            }
+            if (!game.isQuiet()) {
+                game.getOut().println("\n !!!! Resentment explodes around you! " + skill.getName() + " is activated!");
+            }
+            this.activateSkill(skill.getSkill(), player, game);
         }
 
         if (player.getCurrentRoom() == currentRoom) {
-            System.out.println("You sense nothing unusual... but something might be hiding nearby.");
+            game.getOut().println("You sense nothing unusual... but something might be hiding nearby.");
         } else {
-            this.randomMove(game, player, 7);
+            this.randomMove(game, player, game.getConfig().getMoveAttempts());
             if (player.getCurrentRoom() == currentRoom) {
-                System.out.println("You sense nothing unusual... but something might be hiding nearby.");
+                game.getOut().println("You sense nothing unusual... but something might be hiding nearby.");
             }
         }
     }
@@ -52,16 +69,9 @@ public class BoxGirl {
      * @return true if successfully hid in a box, false otherwise.
      */
     private boolean tryHideInBox(Room room) {
-        List<Box> unopened = new ArrayList<>();
-        for (Box b : room.getBoxes()) {
-            if (!b.isOpen() && b.getHiddenOccupant() == null) {
-                unopened.add(b);
-            }
-        }
-
-        if (unopened.isEmpty()) return false;
+        Box chosen = room.getRandomHideableBox(random);
+        if (chosen == null) return false;
 
-        Box chosen = unopened.get(random.nextInt(unopened.size()));
         chosen.setHiddenOccupant(this);
         this.hiddenInBox = chosen;
         return true;
@@ -69,106 +79,292 @@ public class BoxGirl {
 
     /**
      * Moves the Box Girl to a random adjacent room, or possibly to the player's room. She will attempt to hide in a box there.
+     * In hunting mode she steps along a shortest path towards the player instead of a random exit.
      * @param game The main game instance.
      * @param player The player instance.
      * @param attemptsLeft Number of attempts left to find a hiding spot (to avoid infinite recursion).
+     * @return true if she found a box to hide in.
      */
     public boolean randomMove(Game game, Player player, int attemptsLeft) {
+        RandomMoveEvent event = new RandomMoveEvent();
+        event.begin();
+        moveAttempts = 0;
+        boolean hidden = moveAndHide(game, player, attemptsLeft);
+        event.end();
+        if (event.shouldCommit()) {
+            event.attempts = moveAttempts;
+            event.hidden = hidden;
+            event.hunting = game.isHuntingMode();
+            event.commit();
+        }
+        return hidden;
+    }
+
+    /**
+     * One attempt of randomMove: moves once and tries to hide, retrying until the attempts run out.
+     * @param attemptsLeft Number of attempts left to find a hiding spot.
+     * @return true if she found a box to hide in.
+     */
+    private boolean moveAndHide(Game game, Player player, int attemptsLeft) {
 
         if (attemptsLeft == 0) {
             handleNoBoxFound(game, player);
+            recordMove(game);
             return false;
         }
         if (this.hiddenInBox != null) {
             this.hiddenInBox.clearHiddenOccupant();
             this.hiddenInBox = null;
         }
+        // No room has a free box: further attempts could only wander without hiding.
+        if (!game.getMap().hasHideableRoom()) {
+            handleNoBoxFound(game, player);
+            recordMove(game);
+            return false;
+        }
 
-        if (random.nextDouble() < 0.15) {
-            this.currentRoom = player.getCurrentRoom();
+        moveAttempts++;
+        if (random.nextDouble() < game.getConfig().getTeleportChance()) {
+            moveTo(player.getCurrentRoom());
         } else {
-            List<Room> possibleMoves =
-                new ArrayList<>(currentRoom.getConnections().values());
-            if (possibleMoves.isEmpty()) return false;
+            Room step = game.isHuntingMode()
+                    ? game.getMap().getPathFinder().nextStep(currentRoom, player.getCurrentRoom())
+                    : null;
+            if (step == null) {
+                int exitCount = currentRoom.getExitCount();
+                if (exitCount == 0) {
+                    recordMove(game);
+                    return false;
+                }
 
-            this.currentRoom = possibleMoves.get(random.nextInt(possibleMoves.size()));
+                step = currentRoom.getAdjacentRoom(random.nextInt(exitCount));
+            }
+            moveTo(step);
         }
 
         if (!tryHideInBox(this.currentRoom)) {
-            return randomMove(game, player, attemptsLeft - 1);
+            if (game.getMetrics() != null) {
+                game.getMetrics().recordRandomMoveRetry();
+            }
+            return moveAndHide(game, player, attemptsLeft - 1);
         }
 
+        recordMove(game);
         return true;
     }
 
+    /**
+     * Records where a move left the Box Girl in the game's journal, if any.
+     * @param game The main game instance.
+     */
+    private void recordMove(Game game) {
+        if (game.getJournal() != null) {
+            game.getJournal().recordMove(number, currentRoom.getIndex(),
+                    hiddenInBox == null ? 0 : hiddenInBox.getId());
+        }
+    }
+
+    /**
+     * Moves the Box Girl to a room, keeping the state key current.
+     * @param room The room she moves to.
+     */
+    private void moveTo(Room room) {
+        toggleStateKey(ZobristKeys.girlRoom(number, currentRoom) ^ ZobristKeys.girlRoom(number, room));
+        game.getHunters().moved(currentRoom, room);
+        this.currentRoom = room;
+    }
+
+    /**
+     * XORs a change of the Box Girl's state into the map's state key.
+     * @param key The key of the facts that changed.
+     */
+    private void toggleStateKey(long key) {
+        GameMap map = currentRoom.getMap();
+        if (map != null) {
+            map.toggleStateKey(key);
+        }
+    }
+
+    /**
+     * @return Her number in the game's HunterRegistry: 0 for the first Box Girl, 1 for her sister, ...
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * @return The number of turns between her passive triggers (1 means every turn).
+     */
+    public int getPeriod() {
+        return period;
+    }
+
+    /**
+     * Sets how often she acts; the change takes effect after her next passive triggers.
+     * @param period The number of turns between her passive triggers, at least 1.
+     */
+    public void setPeriod(int period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("period must be at least 1: " + period);
+        }
+        this.period = period;
+    }
+
     /**
      * The method that handles the situation when the randomMove method did not find any room with unopned boxes
      * @param game
      * @param player
      */
     private void handleNoBoxFound(Game game, Player player) {
-    System.out.println("The Box Girl tried to find a place to hide but failed, so she stayed in her current location.");
+        if (game.getMetrics() != null) {
+            game.getMetrics().recordNoBoxFound();
+        }
+        game.getOut().println("The Box Girl tried to find a place to hide but failed, so she stayed in her current location.");
     }
 
     /**
      * Executes the effect of a specific unlocked skill.
-     * @param skillName The name of the skill to execute.
+     * @param skillName The name of the skill to execute; unknown names have no effect.
      * @param player The player instance.
      * @param game The main game instance.
      */
     public void activateSkill(String skillName, Player player, Game game) {
-        switch(skillName) {
-            case "Right Beside You":
-                this.currentRoom = player.getCurrentRoom();
-                System.out.println("You catch a glimpse of a moving box in your periphery... It's right beside you!");
+        Skill skill = Skill.parse(skillName);
+        if (skill != null) {
+            activateSkill(skill, player, game);
+        }
+    }
+
+    /**
+     * Executes the effect of a specific unlocked skill.
+     * @param skill The skill to execute.
+     * @param player The player instance.
+     * @param game The main game instance.
+     */
+    public void activateSkill(Skill skill, Player player, Game game) {
+        if (game.getMetrics() != null) {
+            game.getMetrics().recordSkill(skill.getName());
+        }
+        SkillActivationEvent event = new SkillActivationEvent();
+        event.begin();
+        applySkill(skill, player, game);
+        event.end();
+        if (event.shouldCommit()) {
+            event.skill = skill.getName();
+            event.commit();
+        }
+    }
+
+    /**
+     * Applies the effect of a skill for activateSkill.
+     * @param skill The skill to execute.
+     * @param player The player instance.
+     * @param game The main game instance.
+     */
+    private void applySkill(Skill skill, Player player, Game game) {
+        switch (skill) {
+            case RIGHT_BESIDE_YOU:
+                moveTo(player.getCurrentRoom());
+                game.getOut().println("You catch a glimpse of a moving box in your periphery... It's right beside you!");
                 break;
-            case "Moving Around":
-                player.getCurrentRoom().scrambleBoxes(true);
-                System.out.println("The boxes in the room seem to have moved, and some have even closed...");
+            case MOVING_AROUND:
+                player.getCurrentRoom().scrambleBoxes(true, random);
+                game.getOut().println("The boxes in the room seem to have moved, and some have even closed...");
                 break;
-            case "I Want to Open It":
-                System.out.println("The Box Girl's resentment compels you to a strong impulse! You must open a box!");
+            case I_WANT_TO_OPEN_IT:
+                game.getOut().println("The Box Girl's resentment compels you to a strong impulse! You must open a box!");
 
-                Box targetBox = player.getCurrentRoom().getBoxes().stream()
-                        .filter(b -> !b.isOpen() && b.getContent() instanceof Manuscript)
-                        .findAny().orElse(
-                                player.getCurrentRoom().getBoxes().stream().filter(b -> !b.isOpen()).findAny().orElse(null)
-                        );
+                Box targetBox = null;
+                ItemCatalogue catalogue = game.getCatalogue();
+                List<Box> boxes = player.getCurrentRoom().getBoxes();
+                for (int i = 0; i < boxes.size(); i++) {
+                    Box b = boxes.get(i);
+                    boolean manuscript = catalogue.kind(b.getContentId()) == ItemCatalogue.MANUSCRIPT;
+                    if (!b.isOpen() && (targetBox == null || manuscript)) {
+                        targetBox = b;
+                        if (manuscript) break;
+                    }
+                }
 
                 if (targetBox != null) {
-                    System.out.println("Your body moves against your will to open Box " + targetBox.getId() + "!");
+                    game.getOut().println("Your body moves against your will to open Box " + targetBox.getId() + "!");
                     Item content = targetBox.open();
+                    game.recordBoxOpened();
                     if (content != null) {
-                        System.out.println("You found: " + content.getName());
+                        game.getOut().println("You found: " + content.getName());
                         if (content instanceof Manuscript) {
                             ((Manuscript) content).activateSkill(game);
                         } else {
-                            player.addItem(content);
+                            player.addItem(targetBox.getContentId());
                         }
                     }
                 } else {
-                    System.out.println("The Box Girl tried to force you, but all boxes are already open.");
+                    game.getOut().println("The Box Girl tried to force you, but all boxes are already open.");
                 }
                 break;
-            case "Give It to Me":
-                Item weakestItem = player.getInventory().stream()
-                        .filter(i -> i instanceof BoxGirlWeakness)
-                        .findFirst().orElse(null);
+            case GIVE_IT_TO_ME:
+                Item weakestItem = player.getFirstItemOfType(BoxGirlWeakness.class);
 
                 if (weakestItem != null) {
-                    player.getInventory().remove(weakestItem);
+                    player.removeItem(weakestItem);
                     game.addItemToRandomBox(weakestItem);
-                    System.out.println("A shadow quickly sweeps past, and your " + weakestItem.getName() + " is stolen!");
+                    game.getOut().println("A shadow quickly sweeps past, and your " + weakestItem.getName() + " is stolen!");
                 } else {
-                    System.out.println("The Box Girl attempted to steal, but you don't possess her greatest fear.");
+                    game.getOut().println("The Box Girl attempted to steal, but you don't possess her greatest fear.");
                 }
                 break;
-            case "Locked Door":
-                System.out.println("You feel an oppressive force around the exits, making the doors feel stuck.");
+            case LOCKED_DOOR:
+                game.getOut().println("You feel an oppressive force around the exits, making the doors feel stuck.");
+                break;
+            default: // SISTER acts when the manuscript is opened, not when activated
                 break;
         }
     }
 
+    /**
+     * @return The skills unlocked so far, in the order they were unlocked. Must not be modified.
+     */
+    public List<Manuscript> getUnlockedSkills() {
+        return unlockedSkills;
+    }
+
+    /**
+     * Adds an unlocked skill without announcing it (used when loading a saved game).
+     * @param manuscript The manuscript whose skill was unlocked.
+     */
+    void restoreSkill(Manuscript manuscript) {
+        toggleStateKey(ZobristKeys.girlSkill(number, unlockedSkills.size(), manuscript));
+        this.unlockedSkills.add(manuscript);
+    }
+
+    /**
+     * Puts the Box Girl back into a saved position and skill set (used when rolling a game back).
+     * The box itself must be told separately that she hides in it.
+     * @param room The room she is in.
+     * @param hidingBox The box she hides in, or null.
+     * @param skills The unlocked skills, in the order they were unlocked.
+     */
+    void restoreState(Room room, Box hidingBox, Manuscript[] skills) {
+        moveTo(room);
+        this.hiddenInBox = hidingBox;
+        for (int i = 0; i < unlockedSkills.size(); i++) {
+            toggleStateKey(ZobristKeys.girlSkill(number, i, unlockedSkills.get(i)));
+        }
+        this.unlockedSkills.clear();
+        for (Manuscript skill : skills) {
+            restoreSkill(skill);
+        }
+    }
+
+    /**
+     * Replaces the Box Girl's generator with a fresh one from the given seed.
+     * Used when saving, so the saved and the running game continue with the same random decisions.
+     * @param seed The new seed.
+     */
+    void reseed(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
     /**
      * @return The Box Girl's current room.
      */
@@ -187,8 +383,9 @@ public class BoxGirl {
      */
     public void unlockSkill(Item manuscript) {
         if (manuscript instanceof Manuscript) {
+            toggleStateKey(ZobristKeys.girlSkill(number, unlockedSkills.size(), manuscript));
             this.unlockedSkills.add((Manuscript) manuscript);
-            System.out.println("Box Girl Skill [" + ((Manuscript) manuscript).getSkillName() + "] has been unlocked!");
+            game.getOut().println("Box Girl Skill [" + ((Manuscript) manuscript).getSkillName() + "] has been unlocked!");
         }
     }
 }
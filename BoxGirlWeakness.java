@@ -2,6 +2,8 @@
  * Represents a weakness item of the Box Girl that can be used to exorcise her.
  */
 public class BoxGirlWeakness extends Item {
+    /** The number of weaknesses the exorcism takes. */
+    public static final int REQUIRED = 2;
 
     /**
      * Constructs a new BoxGirlWeakness item.
@@ -20,12 +22,12 @@ public class BoxGirlWeakness extends Item {
     @Override
     public String use(Player player, Game game) {
         int weakCount = player.countItemOfType(BoxGirlWeakness.class);
-        if (weakCount < 2) {
-            return "You currently have only " + weakCount + " weakness item(s). You need 2 to perform the exorcism.";
+        if (weakCount < REQUIRED) {
+            return "You currently have only " + weakCount + " weakness item(s). You need " + REQUIRED + " to perform the exorcism.";
         }
 
-        String roomName = player.getCurrentRoom().getFeatureItem();
-        if (!roomName.contains("Miss Mary") && !roomName.contains("Corpse")) {
+        Feature feature = player.getCurrentRoom().getFeature();
+        if (feature == null || !feature.allowsExorcism()) {
             return "You are not in the correct room for exorcism. Find the source of her resentment (Miss Mary's/Corpse Room).";
         }
 
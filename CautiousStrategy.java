@@ -0,0 +1,33 @@
+import java.util.SplittableRandom;
+
+/**
+ * A baseline bot that explores like GreedyExplorerStrategy but never opens a box while it
+ * senses something nearby, since the Box Girl may be hiding in one of them. It drives her
+ * away with a counter item if it has one, and otherwise leaves the room.
+ */
+public class CautiousStrategy extends GreedyExplorerStrategy {
+
+    /**
+     * Constructs a cautious bot.
+     * @param random The generator for breaking ties.
+     */
+    public CautiousStrategy(SplittableRandom random) {
+        super(random);
+    }
+
+    @Override
+    public PlayerAction nextAction(PlayerView view) {
+        PlayerAction win = PlayerStrategy.winningAction(view);
+        if (win != null) return win;
+
+        if (view.isSomethingNearby()) {
+            Item counter = view.getFirstItem(CounterItem.class);
+            if (counter != null) {
+                return PlayerAction.useItem(counter);
+            }
+            PlayerAction escape = leastVisitedExit(view);
+            if (escape != null) return escape;
+        }
+        return super.nextAction(view);
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * A source of player commands. The game asks it for one line whenever it would read from the keyboard.
+ */
+public interface CommandSource {
+
+    /**
+     * Returns the next line of player input.
+     * @param game The game asking for input, so automated sources can look at the current state.
+     * @return The next command or answer to a prompt.
+     */
+    String nextLine(Game game);
+}
@@ -14,22 +14,29 @@ public class CounterItem extends Item {
 
     /**
      * Uses the counter item to prevent Box Girl's actions this turn.
-     * If the Box Girl is in the same room, she is moved away.
+     * Every Box Girl in the same room is moved away.
      * @return A message detailing the item's effect.
      */
     @Override
     public String use(Player player, Game game) {
-        player.getInventory().remove(this);
+        player.removeItem(this);
 
-        if (player.getCurrentRoom().equals(game.getBoxGirl().getCurrentRoom())) {
-            boolean moved = game.getBoxGirl().randomMove(game, player, 7);
-            if (moved) {
-                return getName() + "'s power startled the Box Girl, and she fled your room!";
-            } else {
-                return getName() + "'s power failed to expel the Box Girl — she remained nearby.";
+        Room room = player.getCurrentRoom();
+        HunterRegistry hunters = game.getHunters();
+        if (!hunters.isHunterIn(room)) {
+            return "The aura of the " + getName() + " calms the atmosphere. You feel safe for now.";
+        }
+        boolean moved = true;
+        for (int i = 0; i < hunters.size(); i++) {
+            BoxGirl hunter = hunters.get(i);
+            if (hunter.getCurrentRoom() == room) {
+                moved &= hunter.randomMove(game, player, game.getConfig().getMoveAttempts());
             }
+        }
+        if (moved) {
+            return getName() + "'s power startled the Box Girl, and she fled your room!";
         } else {
-            return "The aura of the " + getName() + " calms the atmosphere. You feel safe for now.";
+            return getName() + "'s power failed to expel the Box Girl — she remained nearby.";
         }
     }
 }
@@ -0,0 +1,40 @@
+/**
+ * The directions a room can be left in. Each direction owns a fixed slot in a room's neighbour array.
+ */
+public enum Direction {
+    NORTH, SOUTH, EAST, WEST, UP, DOWN;
+
+    private static final Direction[] VALUES = values();
+
+    /** The number of directions, i.e. the size of a room's neighbour array. */
+    public static final int COUNT = VALUES.length;
+
+    /**
+     * @return The direction leading back, e.g. SOUTH for NORTH.
+     */
+    public Direction opposite() {
+        switch (this) {
+            case NORTH: return SOUTH;
+            case SOUTH: return NORTH;
+            case EAST: return WEST;
+            case WEST: return EAST;
+            case UP: return DOWN;
+            default: return UP;
+        }
+    }
+
+    /**
+     * Parses a direction typed by the player, ignoring case and surrounding spaces.
+     * @param text The player's input.
+     * @return The direction, or null if the text is not a direction.
+     */
+    public static Direction parse(String text) {
+        String trimmed = text.trim();
+        for (Direction direction : VALUES) {
+            if (direction.name().equalsIgnoreCase(trimmed)) {
+                return direction;
+            }
+        }
+        return null;
+    }
+}
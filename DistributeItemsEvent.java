@@ -0,0 +1,24 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for GameMap.distributeItems.
+ */
+@Name("boxgirl.DistributeItems")
+@Label("Distribute Items")
+@Category("Box Girl")
+@Description("Hiding the items in the mansion's boxes")
+public class DistributeItemsEvent extends Event {
+    @Label("Items")
+    int items;
+
+    @Label("Boxes")
+    int boxes;
+
+    @Label("Sampled")
+    @Description("True if distinct boxes were drawn instead of shuffling all boxes")
+    boolean sampled;
+}
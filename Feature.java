@@ -0,0 +1,41 @@
+/**
+ * What a room's special feature does in the game. The feature's text ("Rocking Chair (Hidden Exit)")
+ * comes from the content file (see GameContent); the rules only look at its kind.
+ */
+public enum Feature {
+    /** The hidden exit, which three passwords open. */
+    HIDDEN_EXIT,
+    /** The corpse's location, where two weaknesses exorcise the Box Girl. */
+    CORPSE,
+    /** Miss Mary's location, where two weaknesses exorcise the Box Girl. */
+    MISS_MARY;
+
+    /**
+     * @return True if the player escapes here with three passwords.
+     */
+    public boolean isExit() {
+        return this == HIDDEN_EXIT;
+    }
+
+    /**
+     * @return True if the player exorcises the Box Girl here with two weaknesses.
+     */
+    public boolean allowsExorcism() {
+        return this == CORPSE || this == MISS_MARY;
+    }
+
+    /**
+     * Parses a feature kind as written in the content file, ignoring case and surrounding spaces.
+     * @param text The kind, e.g. "HIDDEN_EXIT".
+     * @return The kind, or null if the text is not one.
+     */
+    public static Feature parse(String text) {
+        String trimmed = text.trim();
+        for (Feature feature : values()) {
+            if (feature.name().equalsIgnoreCase(trimmed)) {
+                return feature;
+            }
+        }
+        return null;
+    }
+}
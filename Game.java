@@ -1,27 +1,97 @@
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Scanner;
+import java.util.SplittableRandom;
+import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.io.IOException;
+import jdk.jfr.EventType;
 
 /**
  * Main game class that initializes and runs the mansion escape game.
  */
 public class Game {
+    private static final EventType PLAYER_TURN_EVENT = EventType.getEventType(PlayerTurnEvent.class);
+
     private Player player;
     private GameMap map;
-    private BoxGirl boxGirl;
-    private BoxGirl boxGirl2;
-    private Scanner scanner = new Scanner(System.in);
+    private HunterRegistry hunters = new HunterRegistry();
+    private CommandSource input;
+    private PlayerStrategy strategy;
+    private PlayerView view;
+    private TurnJournal journal;
+    private GameMetrics metrics;
+    private boolean timingTurn;
+    private long inputNanos;
+    private PlayerTurnEvent turnEvent;
+    private String turnAction;
+    private int turnPart;
+    private int boxesOpened = 0;
+    private GameConfig config = new GameConfig();
+    private PrintStream out;
     private boolean isGameOver = false;
+    private boolean isWin = false;
+    private int turnCount = 0;
+    private boolean quiet = false;
+    private boolean huntingMode = false;
+    private long seed;
+    private SplittableRandom random;
+    private MapPool.Layout layout;
+
+    /**
+     * Constructs a console game that reads commands from standard input.
+     * @param seed The seed driving every random decision of this game.
+     */
+    public Game(long seed) {
+        this(new ScannerCommandSource(System.in), System.out, seed);
+    }
 
     /**
-     * Main method to start the game.
+     * Constructs a game with its own command source and output stream.
+     * The same seed and the same commands always replay the same game.
+     * @param input The source of player commands (console, socket or bot); may be null for a
+     *              game that is driven by a PlayerStrategy.
+     * @param out The stream all game messages are written to.
+     * @param seed The seed driving every random decision of this game.
      */
-    public static void main(String[] args) {
-        new Game().start();
+    public Game(CommandSource input, PrintStream out, long seed) {
+        this.input = input;
+        this.out = out;
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Main method to start the game. An optional number replays a specific seed,
+     * the argument "hunt" makes the Box Girls hunt the player, and "journal=FILE"
+     * appends the session to a turn journal.
+     */
+    public static void main(String[] args) throws IOException {
+        Long seed = null;
+        boolean hunt = false;
+        String journalFile = null;
+        for (String arg : args) {
+            if (arg.equalsIgnoreCase("hunt")) {
+                hunt = true;
+            } else if (arg.startsWith("journal=")) {
+                journalFile = arg.substring("journal=".length());
+            } else {
+                seed = Long.parseLong(arg);
+            }
+        }
+        if (seed == null) {
+            // A seed given on the command line replays that game as is; a random one must be winnable.
+            seed = LayoutAnalyzer.winnableSeed(new SplittableRandom(), new GameConfig());
+        }
+        Game game = new Game(seed);
+        game.setHuntingMode(hunt);
+        if (journalFile == null) {
+            game.start();
+            return;
+        }
+        try (JournalWriter journal = new JournalWriter(Paths.get(journalFile))) {
+            game.setJournal(journal);
+            game.start();
+        }
     }
 
     /**
@@ -30,7 +100,7 @@ public class Game {
     public void start() {
 
         // Game Background and Goal
-        System.out.println(
+        out.println(
             "-----------------------------------------------------------" +
             "\nPast midnight, you step into an abandoned old villa—a place long swallowed by dust, silence, and things better left forgotten.\n" +
             "Splintered wooden boards and half-rotted suitcases lie scattered across the floor.\n" +
@@ -52,90 +122,263 @@ public class Game {
         );
 
         initializeGame();
-        System.out.println("You are currently in the " + player.getCurrentRoom().getName() + ".");
+        out.println("You are currently in the " + player.getCurrentRoom().getName() + ".");
 
-        while (!isGameOver) {
-            playerTurn();
-            if (isGameOver) break;
+        runTurns(Integer.MAX_VALUE);
+
+        out.println("\n GAME OVER");
+    }
+
+    /**
+     * Plays a whole game without the introduction text. Used by the headless simulation.
+     * @param maxTurns The number of turns after which an unfinished game is abandoned.
+     */
+    public void simulate(int maxTurns) {
+        initializeGame();
+        runTurns(maxTurns);
+    }
+
+    /**
+     * Plays a whole game on a map that has already been generated (e.g. a large stress map).
+     * @param generatedMap The map to play on; it must contain the Basement and both halls.
+     * @param maxTurns The number of turns after which an unfinished game is abandoned.
+     */
+    public void simulate(GameMap generatedMap, int maxTurns) {
+        initializeGame(generatedMap);
+        runTurns(maxTurns);
+    }
+
+    /**
+     * Runs the main loop: the player's turn followed by each Box Girl's passive triggers.
+     * @param maxTurns The maximum number of turns to play.
+     */
+    private void runTurns(int maxTurns) {
+        while (!isGameOver && turnCount < maxTurns) {
+            playTurn();
+        }
+        if (journal != null) {
+            journal.recordEnd(isGameOver, isWin, turnCount);
+        }
+        if (metrics != null) {
+            metrics.recordGame(isGameOver, isWin, boxesOpened);
+        }
+    }
 
-            boxGirl.checkPassiveTriggers(player, this);
-            if (boxGirl2 != null) {
-                boxGirl2.checkPassiveTriggers(player, this);
+    /**
+     * Plays a single turn: the player's action, then the passive triggers of the Box Girls due this turn (see HunterRegistry).
+     */
+    void playTurn() {
+        timingTurn = metrics != null && metrics.isSampled(turnCount);
+        if (timingTurn) {
+            playTimedTurn();
+        } else {
+            playerTurn();
+            turnCount++;
+            if (!isGameOver) {
+                hunters.tick(turnCount, player, this);
             }
         }
+        if (journal != null) {
+            journal.recordTurnEnd(turnCount);
+        }
+    }
 
-        System.out.println("\n GAME OVER");
+    /**
+     * Plays a turn like playTurn, recording how long the player's action (without waiting
+     * for input) and each Box Girl's passive triggers took.
+     */
+    private void playTimedTurn() {
+        inputNanos = 0;
+        long start = System.nanoTime();
+        playerTurn();
+        turnCount++;
+        long end = System.nanoTime();
+        metrics.recordPlayerAction(end - start - inputNanos);
+        if (isGameOver) return;
+
+        hunters.tick(turnCount, player, this);
     }
 
     /**
      * Initializes all game components: generates the map, defines and distributes all items,
      * creates the Player, and initializes the BoxGirl's starting position.
+     * With a pooled layout (see setLayout) the map and items are taken from it instead.
      */
     private void initializeGame() {
-        map = new GameMap();
-        map.generateRandomMap();
-
-        List<Item> allItems = new ArrayList<>();
-
-        // 5 Passwords
-        allItems.add(new Password("Password-A", "A piece of paper with numbers."));
-        allItems.add(new Password("Password-B", "A piece of paper with numbers."));
-        allItems.add(new Password("Password-C", "A piece of paper with numbers."));
-        allItems.add(new Password("Password-D", "A piece of paper with numbers."));
-        allItems.add(new Password("Password-E", "A piece of paper with numbers."));
-
-        // 5 Box Girl Weaknesses
-        allItems.add(new BoxGirlWeakness("White Camellia", "A rare white camellia. One of the Box Girl's weaknesses."));
-        allItems.add(new BoxGirlWeakness("Gasoline", "A small can of gasoline. One of the Box Girl's weaknesses."));
-        allItems.add(new BoxGirlWeakness("Rusty Chain", "A rusty chain with a binding power. One of the Box Girl's weaknesses."));
-        allItems.add(new BoxGirlWeakness("Lighter", "One of the Box Girl's weaknesses."));
-        allItems.add(new BoxGirlWeakness("Old Scissor", "One of the Box Girl's weaknesses."));
-
-        // 3 Counter Items
-        allItems.add(new CounterItem("Matches", "Can temporarily frighten the Box Girl."));
-        allItems.add(new CounterItem("Rope", "Can temporarily restrain the Box Girl."));
-        allItems.add(new CounterItem("Axe", "Can temporarily frighten the Box Girl."));
-
-        // 7 Manuscripts
-        allItems.add(new Manuscript("Manuscript-Beside", "Box Girl is right beside you", "Right Beside You"));
-        allItems.add(new Manuscript("Manuscript-Beside", "Box Girl is right beside you", "Right Beside You"));
-        allItems.add(new Manuscript("Manuscript-Move", "Box Girl moves freely on the same floor", "Moving Around"));
-        allItems.add(new Manuscript("Manuscript-Door", "Door cannot be passed", "Locked Door"));
-        allItems.add(new Manuscript("Manuscript-Open", "Forces player to open a box", "I Want to Open It"));
-        allItems.add(new Manuscript("Manuscript-Take", "Box Girl steals an item", "Give It to Me"));
-        allItems.add(new Manuscript("Manuscript-TwinSister", "You released Box Girl's sister! Now there are 2 box girls", "Box Girl"));
-
-        // 7 Empty Box Markers
-        for(int i = 0; i < 7; i++) {
-            allItems.add(new Item("Empty Box", "A placeholder for an empty box.") {
-                @Override public String use(Player p, Game g) { return "This box is empty."; }
-            });
-        }
-
-        map.distributeItems(allItems);
+        SplittableRandom mapRandom = random.split();
+        if (layout == null) {
+            GameMap generated = new GameMap(out, mapRandom);
+            generated.setQuiet(quiet);
+            generated.generateRandomMap();
+            initializeGame(generated);
+        } else {
+            // The layout was generated from the same split, so the game goes on as if it had generated it.
+            map = layout.getMap();
+            if (map.getCatalogue() != ItemCatalogue.of(config)) {
+                throw new IllegalStateException("The layout was generated for other item counts than " + config);
+            }
+            map.setOut(out);
+            map.setQuiet(quiet);
+            if (!quiet) {
+                out.print(layout.getOutput());
+            }
+            layout = null;
+            placeActors();
+        }
+        if (journal != null) {
+            journal.recordStart(seed, huntingMode, config);
+        }
+    }
 
+    /**
+     * Distributes the items over a generated map and places the Player and the BoxGirl on it.
+     * @param generatedMap The map to play on.
+     */
+    private void initializeGame(GameMap generatedMap) {
+        map = generatedMap;
+        map.distributeItems(ItemCatalogue.of(config));
+        placeActors();
+    }
+
+    /**
+     * Places the Player and the BoxGirl on the map.
+     */
+    private void placeActors() {
         Room startRoom = map.getRoom("First Floor Hall");
         Box startBox = map.getRoom("Second Floor Hall").getBoxes().get(0);
         player = new Player(startRoom, this);
-        boxGirl = new BoxGirl(map.getRoom("Second Floor Hall"), startBox);
+        new BoxGirl(map.getRoom("Second Floor Hall"), startBox, this);
+    }
+
+    /**
+     * Puts a loaded game back together. Used by GameSnapshot instead of initializeGame.
+     */
+    void restore(GameMap map, Player player,
+                 int turnCount, boolean isGameOver, boolean isWin, boolean huntingMode) {
+        this.map = map;
+        this.player = player;
+        this.turnCount = turnCount;
+        this.isGameOver = isGameOver;
+        this.isWin = isWin;
+        this.huntingMode = huntingMode;
+        hunters.reset(turnCount);
+    }
+
+    /**
+     * Records this game's commands and random outcomes in a turn journal.
+     * Must be set before the game starts; only games on the classic map can be replayed.
+     * @param journal The journal, or null to stop recording.
+     */
+    public void setJournal(TurnJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * @return The journal this game records to, or null.
+     */
+    TurnJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Replaces the balance parameters. Must be set before the game starts.
+     * @param config The balance parameters; it must not change while the game runs.
+     */
+    public void setConfig(GameConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * @return The balance parameters of this game.
+     */
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Plays on a layout taken from a MapPool instead of generating the map when the game starts.
+     * Must be set before the game starts.
+     * @param layout A layout generated for this game's seed and item counts, used by no other game.
+     * @throws IllegalArgumentException If the layout was generated for another seed.
+     */
+    public void setLayout(MapPool.Layout layout) {
+        if (layout.getSeed() != seed) {
+            throw new IllegalArgumentException("The layout was generated for seed " + layout.getSeed() + ", not " + seed);
+        }
+        this.layout = layout;
+    }
+
+    /**
+     * Lets a strategy choose the player's actions instead of the command source.
+     * Must be set before the game starts; the command source is then never read.
+     * @param strategy The strategy, or null to read commands again.
+     */
+    public void setStrategy(PlayerStrategy strategy) {
+        this.strategy = strategy;
+        if (view == null) {
+            view = new GameView(this);
+        }
+    }
+
+    /**
+     * Attaches shared metrics that this game's turns and outcome are recorded in.
+     * @param metrics The metrics, or null to record nothing.
+     */
+    public void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return The metrics this game records to, or null.
+     */
+    GameMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Counts a box opened by the player, whether by choice or forced by a skill.
+     */
+    void recordBoxOpened() {
+        boxesOpened++;
+    }
+
+    /**
+     * Replaces the game's generator with a fresh one from the given seed.
+     * @param seed The new seed.
+     */
+    void reseed(long seed) {
+        this.random = new SplittableRandom(seed);
     }
 
     /**
      * Executes the player's turn, processing input and actions.
      */
     private void playerTurn() {
-        player.getCurrentRoom().describe();
+        if (!quiet) {
+            player.getCurrentRoom().describe(out);
+        }
+        if (strategy != null) {
+            strategyTurn();
+            return;
+        }
 
-        System.out.println("\n YOUR TURN");
-        System.out.println("Choose action: [move] / [open box] / [use item] / [put item] / [help]");
-        String action = scanner.nextLine().toLowerCase().trim();
+        out.println("\n YOUR TURN");
+        out.println("Choose action: [move] / [open box] / [use item] / [put item] / [help]");
+        String action = readLine().toLowerCase().trim();
+        // The parts of a turn are tracked in fields only while a recording wants the events, so
+        // the event never escapes (and is not allocated) otherwise.
+        if (PLAYER_TURN_EVENT.isEnabled()) {
+            turnAction = action;
+            turnPart = 0;
+            beginTurnEvent();
+        }
 
         switch (action) {
             case "move":
                 handleMove();
                 break;
             case "open box":
-                handleOpenBox();
+                handleOpenBox(null);
                 break;
             case "put item":
                 handlePutItem();
@@ -147,9 +390,116 @@ public class Game {
                 printHelp();
                 break;
             default:
-                System.out.println("Action failed: Invalid command. Turn lost.");
+                out.println("Action failed: Invalid command. Turn lost.");
+                turnAction = "invalid";
                 break;
         }
+
+        if (turnEvent != null) {
+            commitTurnEvent();
+        }
+    }
+
+    /**
+     * Starts timing the next part of the current console turn.
+     */
+    private void beginTurnEvent() {
+        turnEvent = new PlayerTurnEvent();
+        turnEvent.begin();
+    }
+
+    /**
+     * Ends and commits the timed part of the current console turn, so that the wait for the
+     * next line of input is not part of any event.
+     */
+    private void commitTurnEvent() {
+        PlayerTurnEvent event = turnEvent;
+        turnEvent = null;
+        event.end();
+        if (event.shouldCommit()) {
+            event.action = turnAction;
+            event.turn = turnCount;
+            event.part = turnPart;
+            event.commit();
+        }
+    }
+
+    /**
+     * Executes the player's turn by asking the strategy for a typed action, without any prompts.
+     */
+    private void strategyTurn() {
+        PlayerAction action = strategy.nextAction(view);
+        if (journal != null) {
+            journal.recordAction(action);
+        }
+        PlayerTurnEvent event = new PlayerTurnEvent();
+        event.begin();
+
+        String name;
+        if (action == null) {
+            out.println("Action failed: Invalid command. Turn lost.");
+            name = "invalid";
+        } else {
+            switch (action.getKind()) {
+                case MOVE:
+                    moveTo(action.getDirection());
+                    name = "move";
+                    break;
+                case OPEN_BOX:
+                    handleOpenBox(action);
+                    name = "open box";
+                    break;
+                case USE_ITEM:
+                    useItem(heldItem(action.getItem()));
+                    name = "use item";
+                    break;
+                default:
+                    putItem(action.getBoxId(), heldItem(action.getItem()));
+                    name = "put item";
+                    break;
+            }
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.action = name;
+            event.turn = turnCount;
+            event.commit();
+        }
+    }
+
+    /**
+     * @return The item if the player holds it, otherwise null.
+     */
+    private Item heldItem(Item item) {
+        return item != null && player.hasItem(item) ? item : null;
+    }
+
+    /**
+     * Reads the next line from the command source and records it in the journal, if any.
+     * @return The line as it was read.
+     */
+    private String readLine() {
+        boolean inTurn = turnEvent != null;
+        if (inTurn) {
+            commitTurnEvent();
+        }
+        String line;
+        if (!timingTurn) {
+            line = input.nextLine(this);
+        } else {
+            long start = System.nanoTime();
+            line = input.nextLine(this);
+            inputNanos += System.nanoTime() - start;
+        }
+        if (journal != null) {
+            journal.recordCommand(line);
+        }
+        if (inTurn) {
+            turnPart++;
+            beginTurnEvent();
+        }
+        return line;
     }
 
     /**
@@ -158,65 +508,81 @@ public class Game {
      */
     private void handlePutItem() {
         List<Box> boxes = player.getCurrentRoom().getBoxes();
-        List<Box> openedBoxes = new ArrayList<>();
+        int openedCount = 0;
 
-        System.out.print("Opened boxes IDs: ");
-        for (Box box : boxes) {
+        out.print("Opened boxes IDs: ");
+        for (int i = 0; i < boxes.size(); i++) {
+            Box box = boxes.get(i);
             if (box.isOpen()) {
-                openedBoxes.add(box);
-                System.out.print(box.getId() + " ");
+                openedCount++;
+                if (!quiet) out.print(box.getId() + " ");
             }
         }
-        System.out.println();
+        out.println();
 
-        if (openedBoxes.isEmpty()) {
-            System.out.println("Action failed: There are no opened boxes in this room to put items into.");
+        if (openedCount == 0) {
+            out.println("Action failed: There are no opened boxes in this room to put items into.");
             return;
         }
 
         List<Item> inventory = player.getInventory();
         if (inventory.isEmpty()) {
-            System.out.println("Action failed: Your inventory is empty.");
+            out.println("Action failed: Your inventory is empty.");
             return;
         }
 
-        System.out.println("YOUR ITEMS: ");
-        for (int i = 0; i < inventory.size(); i++) {
-            System.out.println((i + 1) + ". " + inventory.get(i).getName());
-        }
+        printInventory(inventory);
 
-        System.out.println("Enter the ID of the opened box to put the item into:");
+        out.println("Enter the ID of the opened box to put the item into:");
         try {
-            int boxId = Integer.parseInt(scanner.nextLine().trim());
-            Box targetBox = boxes.stream()
-                    .filter(b -> b.getId() == boxId && b.isOpen())
-                    .findFirst()
-                    .orElse(null);
+            int boxId = Integer.parseInt(readLine().trim());
+            Box targetBox = findBox(boxes, boxId, true);
 
             if (targetBox == null) {
-                System.out.println("Action failed: Invalid box ID or the box is not open.");
+                out.println("Action failed: Invalid box ID or the box is not open.");
                 return;
             }
 
-            System.out.println("Enter the name of the item to put into the box:");
-            String itemName = scanner.nextLine().trim();
-            Item itemToPut = getItemFromInventoryByName(itemName);
+            out.println("Enter the name of the item to put into the box:");
+            String itemName = readLine().trim();
+            putItem(targetBox, getItemFromInventoryByName(itemName));
 
-            if (itemToPut == null) {
-                System.out.println("Action failed: You do not have that item.");
-                return;
-            }
+        } catch (NumberFormatException e) {
+            out.println("Action failed: Invalid input. Please enter a number.");
+        }
+    }
 
-            boolean placed = targetBox.putItem(itemToPut);
-            if (placed) {
-                player.removeItem(itemToPut);
-                System.out.println("Result: You placed " + itemToPut.getName() + " into box " + targetBox.getId() + ". The box is now closed.");
-            } else {
-                System.out.println("Action failed: Could not place the item into the box.");
-            }
+    /**
+     * Puts an item into an opened box of the current room (the typed form of "put item").
+     * @param boxId The ID of the opened box.
+     * @param item The item from the inventory, or null if the player does not hold it.
+     */
+    private void putItem(int boxId, Item item) {
+        Box targetBox = findBox(player.getCurrentRoom().getBoxes(), boxId, true);
+        if (targetBox == null) {
+            out.println("Action failed: Invalid box ID or the box is not open.");
+            return;
+        }
+        putItem(targetBox, item);
+    }
 
-        } catch (NumberFormatException e) {
-            System.out.println("Action failed: Invalid input. Please enter a number.");
+    /**
+     * Puts an item into an opened box, which closes it.
+     * @param targetBox The opened box.
+     * @param itemToPut The item from the inventory, or null if the player does not hold it.
+     */
+    private void putItem(Box targetBox, Item itemToPut) {
+        if (itemToPut == null) {
+            out.println("Action failed: You do not have that item.");
+            return;
+        }
+
+        boolean placed = targetBox.putItem(itemToPut);
+        if (placed) {
+            player.removeItem(itemToPut);
+            out.println("Result: You placed " + itemToPut.getName() + " into box " + targetBox.getId() + ". The box is now closed.");
+        } else {
+            out.println("Action failed: Could not place the item into the box.");
         }
     }
 
@@ -226,86 +592,154 @@ public class Game {
     private void printHelp() {
         try {
             String content = Files.readString(Paths.get("cheatsheet.md"));
-            System.out.println("\n--- HELP ---\n" + content + "\n--- END HELP ---\n");
+            out.println("\n--- HELP ---\n" + content + "\n--- END HELP ---\n");
         } catch (IOException e) {
-            System.out.println("Help file not available. Short help:\n- move\n- open box\n- use item\n");
+            out.println("Help file not available. Short help:\n- move\n- open box\n- use item\n");
         }
     }
     /**
      * Handles the player's movement command.
      */
     private void handleMove() {
-        Room current = player.getCurrentRoom();
-
-        System.out.println("Enter movement direction (e.g.: NORTH, SOUTH, EAST, WEST, UP, DOWN):");
-        String direction = scanner.nextLine().toUpperCase().trim();
+        out.println("Enter movement direction (e.g.: NORTH, SOUTH, EAST, WEST, UP, DOWN):");
+        moveTo(Direction.parse(readLine()));
+    }
 
-        Room nextRoom = current.getNeighbor(direction);
+    /**
+     * Moves the player through an exit of the current room (the typed form of "move").
+     * @param direction The direction, or null for an unknown one.
+     */
+    private void moveTo(Direction direction) {
+        Room current = player.getCurrentRoom();
+        Room nextRoom = direction == null ? null : current.getNeighbor(direction);
 
         if (nextRoom != null) {
             player.move(nextRoom);
         } else {
-            System.out.println("Action failed: There is no path in that direction.");
+            out.println("Action failed: There is no path in that direction.");
         }
     }
 
     /**
      * Handles the player's action of opening a box in the current room.
+     * @param action The typed open action of a strategy, or null to ask for the box.
      */
-    private void handleOpenBox() {
+    private void handleOpenBox(PlayerAction action) {
+        OpenBoxEvent event = new OpenBoxEvent();
+        event.begin();
+        String outcome = action == null ? openChosenBox(event) : openBox(action.getBoxId(), event);
+        event.end();
+        if (event.shouldCommit()) {
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    /**
+     * Asks for a box in the current room and opens it.
+     * @param event The event that receives the chosen box ID.
+     * @return A short outcome for the event: "item", "empty", "manuscript", "sister", "caught" or "failed".
+     */
+    private String openChosenBox(OpenBoxEvent event) {
         List<Box> boxes = player.getCurrentRoom().getBoxes();
-        List<Box> unopenedBoxes = new ArrayList<>();
+        int unopenedCount = 0;
 
-        System.out.print("Unopened boxes IDs: ");
-        for (Box box : boxes) {
+        out.print("Unopened boxes IDs: ");
+        for (int i = 0; i < boxes.size(); i++) {
+            Box box = boxes.get(i);
             if (!box.isOpen()) {
-                unopenedBoxes.add(box);
-                System.out.print(box.getId() + " ");
+                unopenedCount++;
+                if (!quiet) out.print(box.getId() + " ");
             }
         }
-        System.out.println();
+        out.println();
 
-        if (unopenedBoxes.isEmpty()) {
-            System.out.println("Action failed: All boxes in this room are already open.");
-            return;
+        if (unopenedCount == 0) {
+            out.println("Action failed: All boxes in this room are already open.");
+            return "failed";
         }
 
-        System.out.println("Enter the ID of the box to open:");
+        out.println("Enter the ID of the box to open:");
         try {
-            int boxId = Integer.parseInt(scanner.nextLine().trim());
-            Box targetBox = boxes.stream()
-                    .filter(b -> b.getId() == boxId && !b.isOpen())
-                    .findFirst()
-                    .orElse(null);
-
-            if (targetBox != null) {
-                if (targetBox.getHiddenOccupant() != null) {
-                    System.out.println("Result: As you open the box, a monstrous presence emerges!");
-                    endGame(false, "You opened the box that hid the Box Girl. She caught you immediately.");
-                    return;
-                }
+            return openBox(Integer.parseInt(readLine().trim()), event);
+        } catch (NumberFormatException e) {
+            out.println("Action failed: Invalid input. Please enter a number.");
+        }
+        return "failed";
+    }
+
+    /**
+     * Opens an unopened box of the current room (the typed form of "open box").
+     * @param boxId The ID of the box.
+     * @param event The event that receives the box ID.
+     * @return A short outcome for the event, as for openChosenBox.
+     */
+    private String openBox(int boxId, OpenBoxEvent event) {
+        event.boxId = boxId;
+        Box targetBox = findBox(player.getCurrentRoom().getBoxes(), boxId, false);
+
+        if (targetBox != null) {
+            if (targetBox.getHiddenOccupant() != null) {
+                out.println("Result: As you open the box, a monstrous presence emerges!");
+                endGame(false, "You opened the box that hid the Box Girl. She caught you immediately.");
+                return "caught";
+            }
 
-                Item content = targetBox.open();
-
-                if (content == null || content.getName().equals("Empty Box")) {
-                    System.out.println("Result: The box is empty.");
-                } else if (content instanceof Manuscript) {
-                    if (content instanceof Manuscript && ((Manuscript) content).getSkillName().equalsIgnoreCase("Box Girl")) {
-                        Box startBox2 = map.getRoom("Basement").getBoxes().get(2);
-                        boxGirl2 = new BoxGirl(map.getRoom("Basement"), startBox2);
-                        System.out.println("Result: You have released the Box Girl's sister! Now there are two box girls.");
-                    } else {
-                        System.out.println("Result: RESENTMENT BURST. A " + content.getName() + " was found and activated the Box Girl's power. The manuscript disappeared in the air.");
-                        ((Manuscript) content).activateSkill(this);
-                    }
+            Item content = targetBox.open();
+            recordBoxOpened();
+            ItemCatalogue catalogue = map.getCatalogue();
+            int id = targetBox.getContentId();
+
+            if (id == 0 || catalogue.kind(id) == ItemCatalogue.EMPTY) {
+                out.println("Result: The box is empty.");
+                return "empty";
+            } else if (catalogue.kind(id) == ItemCatalogue.MANUSCRIPT) {
+                if (catalogue.skill(id) == Skill.SISTER) {
+                    Box startBox2 = map.getRoom("Basement").getBoxes().get(2);
+                    new BoxGirl(map.getRoom("Basement"), startBox2, this);
+                    out.println("Result: You have released the Box Girl's sister! Now there are two box girls.");
+                    return "sister";
                 } else {
-                    player.addItem(content);
+                    if (!quiet) out.println("Result: RESENTMENT BURST. A " + content.getName() + " was found and activated the Box Girl's power. The manuscript disappeared in the air.");
+                    ((Manuscript) content).activateSkill(this);
+                    return "manuscript";
                 }
             } else {
-                System.out.println("Action failed: Invalid box ID or the box is already open.");
+                player.addItem(id);
+                return "item";
+            }
+        } else {
+            out.println("Action failed: Invalid box ID or the box is already open.");
+        }
+        return "failed";
+    }
+
+    /**
+     * Finds a box in a room by ID, looking only at boxes in the requested open state.
+     * @param boxes The boxes of the room.
+     * @param boxId The ID entered by the player.
+     * @param open True to look for an opened box, false for an unopened one.
+     * @return The matching box, or null if there is none.
+     */
+    private Box findBox(List<Box> boxes, int boxId, boolean open) {
+        for (int i = 0; i < boxes.size(); i++) {
+            Box box = boxes.get(i);
+            if (box.getId() == boxId && box.isOpen() == open) {
+                return box;
             }
-        } catch (NumberFormatException e) {
-            System.out.println("Action failed: Invalid input. Please enter a number.");
+        }
+        return null;
+    }
+
+    /**
+     * Prints the numbered list of the player's items.
+     * @param inventory The player's inventory.
+     */
+    private void printInventory(List<Item> inventory) {
+        out.println("YOUR ITEMS: ");
+        if (quiet) return;
+        for (int i = 0; i < inventory.size(); i++) {
+            out.println((i + 1) + ". " + inventory.get(i).getName());
         }
     }
 
@@ -315,25 +749,27 @@ public class Game {
     private void handleUseItem() {
         List<Item> inventory = player.getInventory();
         if (inventory.isEmpty()) {
-            System.out.println("Action failed: Your inventory is empty.");
+            out.println("Action failed: Your inventory is empty.");
             return;
         }
 
-        System.out.println("YOUR ITEMS: ");
-        for (int i = 0; i < inventory.size(); i++) {
-            System.out.println((i + 1) + ". " + inventory.get(i).getName());
-        }
+        printInventory(inventory);
 
-        System.out.println("Enter the name of the item to use:");
-        String itemName = scanner.nextLine().trim();
-
-        Item targetItem = getItemFromInventoryByName(itemName);
+        out.println("Enter the name of the item to use:");
+        String itemName = readLine().trim();
+        useItem(getItemFromInventoryByName(itemName));
+    }
 
+    /**
+     * Uses an item from the inventory (the typed form of "use item").
+     * @param targetItem The item, or null if the player does not hold it.
+     */
+    private void useItem(Item targetItem) {
         if (targetItem != null) {
             String result = targetItem.use(player, this);
-            System.out.println("Result: " + result);
+            out.println("Result: " + result);
         } else {
-            System.out.println("Action failed: You do not have that item.");
+            out.println("Action failed: You do not have that item.");
         }
     }
 
@@ -344,10 +780,11 @@ public class Game {
      */
     public void endGame(boolean win, String message) {
         isGameOver = true;
-        System.out.println("-------------------------------------------");
-        System.out.println(win ? "VICTORY ACHIEVED!" : "FAILURE!");
-        System.out.println(message);
-        System.out.println("-------------------------------------------");
+        isWin = win;
+        out.println("-------------------------------------------");
+        out.println(win ? "VICTORY ACHIEVED!" : "FAILURE!");
+        out.println(message);
+        out.println("-------------------------------------------");
     }
 
     /**
@@ -356,30 +793,21 @@ public class Game {
      * @return The Item object, or null if not found.
      */
     public Item getItemFromInventoryByName(String name) {
-        return player.getInventory().stream()
-                .filter(item -> item.getName().equalsIgnoreCase(name))
-                .findFirst()
-                .orElse(null);
+        return player.getItemByName(name);
     }
 
     /**
-     * Hides a stolen item back into a random unopened empty box.
+     * Hides a stolen item back into a random unopened empty box, picked from the map's free-box index.
      * @param item The item to be hidden.
      */
     public void addItemToRandomBox(Item item) {
-        List<Box> allBoxes = map.getAllBoxes();
-        Collections.shuffle(allBoxes);
-
-        Box target = allBoxes.stream()
-                .filter(b -> !b.isOpen() && b.getContent() == null)
-                .findFirst()
-                .orElse(null);
+        Box target = map.getRandomFreeBox(random);
 
         if (target != null) {
             target.setContent(item);
-            System.out.println("Status: The stolen item has been re-hidden.");
+            out.println("Status: The stolen item has been re-hidden.");
         } else {
-            System.out.println("Status: The item is lost, Box Girl failed to find a hiding spot.");
+            out.println("Status: The item is lost, Box Girl failed to find a hiding spot.");
         }
     }
 
@@ -391,9 +819,120 @@ public class Game {
     }
 
     /**
-     * @return The BoxGirl instance.
+     * @return The first Box Girl, or null before the game is initialized.
      */
     public BoxGirl getBoxGirl() {
-        return boxGirl;
+        return hunters.size() == 0 ? null : hunters.get(0);
+    }
+
+    /**
+     * @return Every Box Girl of this game (the first one, released sisters and any added hunters).
+     */
+    public HunterRegistry getHunters() {
+        return hunters;
+    }
+
+    /**
+     * @return True if the current turn's durations are being recorded in the metrics.
+     */
+    boolean isTimingTurn() {
+        return timingTurn;
+    }
+
+    /**
+     * @return The items of this game; an item's ID minus one is its number in saved games.
+     */
+    ItemCatalogue getCatalogue() {
+        return map.getCatalogue();
+    }
+
+    /**
+     * @return The Player instance.
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * @return The game's random generator. Components split their own generator off it.
+     */
+    public SplittableRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * Equal states (same boxes, inventory, positions and skills) have equal keys, also across games
+     * of the same seed, so the key can index transposition tables or detect repeated states.
+     * @return The Zobrist key of the current game state, maintained incrementally (see ZobristKeys).
+     */
+    public long getStateKey() {
+        return map.getStateKey();
+    }
+
+    /**
+     * @return The seed this game was started with.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Turns quiet mode on or off. A quiet game skips room descriptions and every message that
+     * would have to be built from pieces, so headless turns do not allocate.
+     * @param quiet True for headless play.
+     */
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+    }
+
+    /**
+     * @return True if the game is running headless.
+     */
+    public boolean isQuiet() {
+        return quiet;
+    }
+
+    /**
+     * Turns hunting mode on or off. Hunting Box Girls move along shortest paths towards the player
+     * instead of wandering randomly, as in the original card game.
+     * @param huntingMode True to make the Box Girls hunt.
+     */
+    public void setHuntingMode(boolean huntingMode) {
+        this.huntingMode = huntingMode;
+    }
+
+    /**
+     * @return True if the Box Girls hunt the player.
+     */
+    public boolean isHuntingMode() {
+        return huntingMode;
+    }
+
+    /**
+     * @return The stream game messages are written to.
+     */
+    public PrintStream getOut() {
+        return out;
+    }
+
+    /**
+     * @return True once the game has ended.
+     */
+    public boolean isGameOver() {
+        return isGameOver;
+    }
+
+    /**
+     * @return True if the game ended in a victory.
+     */
+    public boolean isWin() {
+        return isWin;
+    }
+
+    /**
+     * @return The number of player turns played so far.
+     */
+    public int getTurnCount() {
+        return turnCount;
     }
 }
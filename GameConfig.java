@@ -0,0 +1,177 @@
+import java.nio.ByteBuffer;
+
+/**
+ * The balance parameters of a game: the Box Girl's chances, her move attempts and how many
+ * items of each kind are hidden in the mansion. A new config holds the classic values.
+ * A config must not be changed while games are using it; it may be shared between games.
+ */
+public class GameConfig {
+    /** The number of bytes written by writeTo. */
+    static final int BYTES = 8 + 8 + 4 * 6;
+
+    private double skillChance = 0.15;
+    private double teleportChance = 0.15;
+    private int moveAttempts = 7;
+    private int passwords = 5;
+    private int weaknesses = 5;
+    private int counterItems = 3;
+    private int manuscripts = 7;
+    private int emptyBoxes = 7;
+
+    /**
+     * Constructs a config with the classic balance.
+     */
+    public GameConfig() {
+    }
+
+    /**
+     * Reads a config written by writeTo.
+     * @param buf The buffer, positioned at the config.
+     * @return The config.
+     */
+    static GameConfig readFrom(ByteBuffer buf) {
+        GameConfig config = new GameConfig();
+        config.setSkillChance(buf.getDouble());
+        config.setTeleportChance(buf.getDouble());
+        config.setMoveAttempts(buf.getInt());
+        config.setPasswords(buf.getInt());
+        config.setWeaknesses(buf.getInt());
+        config.setCounterItems(buf.getInt());
+        config.setManuscripts(buf.getInt());
+        config.setEmptyBoxes(buf.getInt());
+        return config;
+    }
+
+    /**
+     * Writes this config in BYTES bytes (used by snapshots and journals).
+     * @param buf The buffer to write to.
+     */
+    void writeTo(ByteBuffer buf) {
+        buf.putDouble(skillChance).putDouble(teleportChance).putInt(moveAttempts)
+           .putInt(passwords).putInt(weaknesses).putInt(counterItems).putInt(manuscripts).putInt(emptyBoxes);
+    }
+
+    /**
+     * @return The chance per turn that a Box Girl with unlocked skills activates one.
+     */
+    public double getSkillChance() { return skillChance; }
+
+    /**
+     * @param skillChance The chance per turn that a Box Girl with unlocked skills activates one.
+     */
+    public void setSkillChance(double skillChance) {
+        this.skillChance = checkChance(skillChance, "Skill chance");
+    }
+
+    /**
+     * @return The chance per move attempt that a Box Girl jumps straight to the player's room.
+     */
+    public double getTeleportChance() { return teleportChance; }
+
+    /**
+     * @param teleportChance The chance per move attempt that a Box Girl jumps straight to the player's room.
+     */
+    public void setTeleportChance(double teleportChance) {
+        this.teleportChance = checkChance(teleportChance, "Teleport chance");
+    }
+
+    /**
+     * @return How many rooms a Box Girl tries before she gives up looking for a box.
+     */
+    public int getMoveAttempts() { return moveAttempts; }
+
+    /**
+     * @param moveAttempts How many rooms a Box Girl tries before she gives up looking for a box.
+     */
+    public void setMoveAttempts(int moveAttempts) {
+        this.moveAttempts = checkCount(moveAttempts, "Move attempts");
+    }
+
+    /**
+     * @return The number of passwords hidden in the mansion.
+     */
+    public int getPasswords() { return passwords; }
+
+    /**
+     * @param passwords The number of passwords hidden in the mansion.
+     */
+    public void setPasswords(int passwords) {
+        this.passwords = checkCount(passwords, "Passwords");
+    }
+
+    /**
+     * @return The number of Box Girl weaknesses hidden in the mansion.
+     */
+    public int getWeaknesses() { return weaknesses; }
+
+    /**
+     * @param weaknesses The number of Box Girl weaknesses hidden in the mansion.
+     */
+    public void setWeaknesses(int weaknesses) {
+        this.weaknesses = checkCount(weaknesses, "Weaknesses");
+    }
+
+    /**
+     * @return The number of counter items hidden in the mansion.
+     */
+    public int getCounterItems() { return counterItems; }
+
+    /**
+     * @param counterItems The number of counter items hidden in the mansion.
+     */
+    public void setCounterItems(int counterItems) {
+        this.counterItems = checkCount(counterItems, "Counter items");
+    }
+
+    /**
+     * @return The number of manuscripts hidden in the mansion.
+     */
+    public int getManuscripts() { return manuscripts; }
+
+    /**
+     * @param manuscripts The number of manuscripts hidden in the mansion.
+     */
+    public void setManuscripts(int manuscripts) {
+        this.manuscripts = checkCount(manuscripts, "Manuscripts");
+    }
+
+    /**
+     * @return The number of "Empty Box" markers hidden in the mansion.
+     */
+    public int getEmptyBoxes() { return emptyBoxes; }
+
+    /**
+     * @param emptyBoxes The number of "Empty Box" markers hidden in the mansion.
+     */
+    public void setEmptyBoxes(int emptyBoxes) {
+        this.emptyBoxes = checkCount(emptyBoxes, "Empty boxes");
+    }
+
+    /**
+     * @return The total number of items, including the "Empty Box" markers.
+     */
+    public int getItemCount() {
+        return passwords + weaknesses + counterItems + manuscripts + emptyBoxes;
+    }
+
+    private static double checkChance(double chance, String what) {
+        if (!(chance >= 0 && chance <= 1)) {
+            throw new IllegalArgumentException(what + " must be between 0 and 1: " + chance);
+        }
+        return chance;
+    }
+
+    private static int checkCount(int count, String what) {
+        if (count < 0) {
+            throw new IllegalArgumentException(what + " must not be negative: " + count);
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "skillChance=" + skillChance + " teleportChance=" + teleportChance + " moveAttempts=" + moveAttempts
+                + " passwords=" + passwords + " weaknesses=" + weaknesses + " counterItems=" + counterItems
+                + " manuscripts=" + manuscripts + " emptyBoxes=" + emptyBoxes;
+    }
+}
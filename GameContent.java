@@ -0,0 +1,283 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The content of the mansion, read from a data file (content.txt): the side room names, the
+ * room features and the definitions of the items hidden in the boxes. The file is parsed once
+ * into immutable tables that every game in the process shares; maps and item catalogues take
+ * their names, texts and definitions from here instead of from code.
+ *
+ * get() reads the file named by the system property boxgirl.content, else content.txt in the
+ * working directory, else content.txt on the class path.
+ */
+public final class GameContent {
+    /** The system property naming the content file to use instead of content.txt. */
+    public static final String PROPERTY = "boxgirl.content";
+    private static final String FILE_NAME = "content.txt";
+
+    /**
+     * An item definition: the name and description of an item, and for manuscripts the skill.
+     */
+    static final class Definition {
+        private final String name;
+        private final String description;
+        private final Skill skill;
+
+        Definition(String name, String description, Skill skill) {
+            this.name = name;
+            this.description = description;
+            this.skill = skill;
+        }
+
+        String getName() { return name; }
+
+        String getDescription() { return description; }
+
+        /**
+         * @return The skill a manuscript unlocks, or null for other items.
+         */
+        Skill getSkill() { return skill; }
+    }
+
+    private static volatile GameContent shared;
+
+    private final List<String> roomNames;
+    private final List<String> featureTexts;
+    private final Map<String, Feature> features;
+    private final Definition password;
+    private final List<Definition> weaknesses;
+    private final List<Definition> counterItems;
+    private final List<Definition> manuscripts;
+    private final Definition emptyBox;
+
+    private GameContent(List<String> roomNames, List<String> featureTexts, Map<String, Feature> features,
+                        Definition password, List<Definition> weaknesses, List<Definition> counterItems,
+                        List<Definition> manuscripts, Definition emptyBox) {
+        this.roomNames = Collections.unmodifiableList(roomNames);
+        this.featureTexts = Collections.unmodifiableList(featureTexts);
+        this.features = features;
+        this.password = password;
+        this.weaknesses = Collections.unmodifiableList(weaknesses);
+        this.counterItems = Collections.unmodifiableList(counterItems);
+        this.manuscripts = Collections.unmodifiableList(manuscripts);
+        this.emptyBox = emptyBox;
+    }
+
+    /**
+     * Returns the content shared by every game in the process, reading it on first use.
+     * @return The content.
+     * @throws UncheckedIOException If the content file cannot be read.
+     * @throws IllegalArgumentException If the content file is malformed.
+     */
+    public static GameContent get() {
+        GameContent content = shared;
+        if (content == null) {
+            synchronized (GameContent.class) {
+                content = shared;
+                if (content == null) {
+                    content = loadDefault();
+                    shared = content;
+                }
+            }
+        }
+        return content;
+    }
+
+    private static GameContent loadDefault() {
+        try {
+            String file = System.getProperty(PROPERTY);
+            if (file != null) {
+                return load(Paths.get(file));
+            }
+            Path local = Paths.get(FILE_NAME);
+            if (Files.isRegularFile(local)) {
+                return load(local);
+            }
+            try (InputStream in = GameContent.class.getResourceAsStream("/" + FILE_NAME)) {
+                if (in == null) {
+                    throw new IOException(FILE_NAME + " not found in the working directory or on the class path"
+                            + " (set -D" + PROPERTY + "=FILE to use another file)");
+                }
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                List<String> lines = new ArrayList<>();
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    lines.add(line);
+                }
+                return parse(lines, FILE_NAME);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the game content: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads a content file.
+     * @param file The file.
+     * @return The content.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalArgumentException If the file is malformed.
+     */
+    public static GameContent load(Path file) throws IOException {
+        return parse(Files.readAllLines(file, StandardCharsets.UTF_8), file.toString());
+    }
+
+    /**
+     * Parses the lines of a content file (the format is described in content.txt).
+     * @param lines The lines.
+     * @param source The name of the file, for error messages.
+     * @return The content.
+     * @throws IllegalArgumentException If a line is malformed, or a record type the game needs is missing.
+     */
+    static GameContent parse(List<String> lines, String source) {
+        List<String> roomNames = new ArrayList<>();
+        List<String> featureTexts = new ArrayList<>();
+        Map<String, Feature> features = new HashMap<>();
+        Definition password = null;
+        List<Definition> weaknesses = new ArrayList<>();
+        List<Definition> counterItems = new ArrayList<>();
+        List<Definition> manuscripts = new ArrayList<>();
+        Definition emptyBox = null;
+
+        for (int n = 0; n < lines.size(); n++) {
+            String line = lines.get(n).trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] fields = line.split("\\|");
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = fields[i].trim();
+            }
+            String where = source + ":" + (n + 1) + ": ";
+            switch (fields[0]) {
+                case "room":
+                    checkFields(fields, 2, where);
+                    roomNames.add(fields[1]);
+                    break;
+                case "feature":
+                    checkFields(fields, 3, where);
+                    Feature feature = Feature.parse(fields[1]);
+                    if (feature == null) {
+                        throw new IllegalArgumentException(where + "unknown feature kind: " + fields[1]);
+                    }
+                    if (features.put(fields[2], feature) != null) {
+                        throw new IllegalArgumentException(where + "duplicate feature: " + fields[2]);
+                    }
+                    featureTexts.add(fields[2]);
+                    break;
+                case "password":
+                    checkFields(fields, 3, where);
+                    password = new Definition(fields[1], fields[2], null);
+                    break;
+                case "weakness":
+                    checkFields(fields, 3, where);
+                    weaknesses.add(new Definition(fields[1], fields[2], null));
+                    break;
+                case "counter":
+                    checkFields(fields, 3, where);
+                    counterItems.add(new Definition(fields[1], fields[2], null));
+                    break;
+                case "manuscript":
+                    checkFields(fields, 4, where);
+                    Skill skill = Skill.parse(fields[3]);
+                    if (skill == null) {
+                        throw new IllegalArgumentException(where + "unknown skill: " + fields[3]);
+                    }
+                    manuscripts.add(new Definition(fields[1], fields[2], skill));
+                    break;
+                case "empty":
+                    checkFields(fields, 3, where);
+                    emptyBox = new Definition(fields[1], fields[2], null);
+                    break;
+                default:
+                    throw new IllegalArgumentException(where + "unknown record type: " + fields[0]);
+            }
+        }
+
+        if (roomNames.isEmpty()) throw missing(source, "room");
+        if (password == null) throw missing(source, "password");
+        if (weaknesses.isEmpty()) throw missing(source, "weakness");
+        if (counterItems.isEmpty()) throw missing(source, "counter");
+        if (manuscripts.isEmpty()) throw missing(source, "manuscript");
+        if (emptyBox == null) throw missing(source, "empty");
+        return new GameContent(roomNames, featureTexts, features, password,
+                weaknesses, counterItems, manuscripts, emptyBox);
+    }
+
+    private static void checkFields(String[] fields, int count, String where) {
+        if (fields.length != count) {
+            throw new IllegalArgumentException(where + "a " + fields[0] + " record has " + count
+                    + " fields, found " + fields.length);
+        }
+    }
+
+    private static IllegalArgumentException missing(String source, String type) {
+        return new IllegalArgumentException(source + ": no " + type + " record");
+    }
+
+    /**
+     * @return The names of the side rooms, in file order.
+     */
+    public List<String> getRoomNames() {
+        return roomNames;
+    }
+
+    /**
+     * @return The texts of the room features, in file order.
+     */
+    public List<String> getFeatureTexts() {
+        return featureTexts;
+    }
+
+    /**
+     * @param text A room's feature text, or null.
+     * @return The kind of that feature, or null if the text is null or not a feature of this content.
+     */
+    public Feature featureOf(String text) {
+        return text == null ? null : features.get(text);
+    }
+
+    /**
+     * @return The password definition; copies are numbered by letter.
+     */
+    Definition getPassword() {
+        return password;
+    }
+
+    /**
+     * @return The weakness definitions, in file order.
+     */
+    List<Definition> getWeaknesses() {
+        return weaknesses;
+    }
+
+    /**
+     * @return The counter item definitions, in file order.
+     */
+    List<Definition> getCounterItems() {
+        return counterItems;
+    }
+
+    /**
+     * @return The manuscript definitions, in file order.
+     */
+    List<Definition> getManuscripts() {
+        return manuscripts;
+    }
+
+    /**
+     * @return The definition of the "Empty Box" marker.
+     */
+    Definition getEmptyBox() {
+        return emptyBox;
+    }
+}
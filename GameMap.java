@@ -1,24 +1,54 @@
+import java.io.PrintStream;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.SplittableRandom;
 import java.util.Arrays;
 
 /**
  * Represents the mansion map, including rooms and their connections.
+ * Room positions are kept in sparse 16x16 chunks per floor, so very large generated
+ * mansions only pay for the cells that hold a room.
  */
 public class GameMap {
+    private static final int CHUNK_BITS = 4;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+    /** Rows and columns of the classic villa drawn by printAsciiMap. */
+    private static final int ROWS = 9;
+    private static final int COLS = 3;
+
     private Map<String, Room> allRooms;
-    private Room[][] mapGrid;
-    private int size = 9;
+    private List<Room> roomList;
+    private Map<Long, Room[]> chunks;
+    private PrintStream out;
+    private boolean quiet;
+    private SplittableRandom random;
+    private int nextBoxId = 1;
+    private List<Box> allBoxes;
+    private Box[] freeBoxes = new Box[32];
+    private int freeCount = 0;
+    private Room[] hideableRooms = new Room[16];
+    private int hideableCount = 0;
+    private int connectionVersion = 0;
+    private PathFinder pathFinder;
+    private long stateKey = 0;
+    private ItemCatalogue catalogue;
 
     /**
      * Constructs a new Map instance and initializes the internal structures.
+     * @param out The stream the ASCII map is printed to.
+     * @param random The generator used for the layout and item distribution.
      */
-    public GameMap() {
+    public GameMap(PrintStream out, SplittableRandom random) {
+        this.out = out;
+        this.random = random;
         this.allRooms = new HashMap<>();
-        this.mapGrid = new Room[size][3];
+        this.roomList = new ArrayList<>();
+        this.chunks = new HashMap<>();
     }
 
     /**
@@ -26,73 +56,262 @@ public class GameMap {
      * and places it in the grid at the specified coordinates.
      *
      * @param name The name of the room.
+     * @param floor The floor of the room (the classic villa keeps everything on floor 0).
      * @param x The x-coordinate of the room in the map grid.
      * @param y The y-coordinate of the room in the map grid.
      * @param feature A unique descriptive feature of the room.
      * @return The newly created Room object.
      */
-    private Room createRoom(String name, int x, int y, String feature) {
-        Room room = new Room(name, x, y, feature);
+    private Room createRoom(String name, int floor, int x, int y, String feature) {
+        Room room = new Room(name, floor, x, y, feature, this);
+        for (Box box : room.getBoxes()) {
+            updateFreeBox(box);
+        }
+        updateHideableRoom(room);
+        allBoxes = null;
         allRooms.put(name, room);
-        mapGrid[x][y] = room;
+        room.setIndex(roomList.size());
+        roomList.add(room);
+        chunks.computeIfAbsent(chunkKey(floor, x, y), k -> new Room[1 << (2 * CHUNK_BITS)])[cellIndex(x, y)] = room;
         return room;
     }
 
+    /**
+     * Recreates a room when a saved game is loaded. Rooms must be restored in their original order
+     * so that room indexes and box IDs come out the same.
+     * @return The restored Room object.
+     */
+    Room restoreRoom(String name, int floor, int x, int y, String feature) {
+        return createRoom(name, floor, x, y, feature);
+    }
+
+    /**
+     * Looks up the room at a grid position.
+     * @param floor The floor.
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @return The room there, or null if the cell is empty.
+     */
+    public Room getRoomAt(int floor, int x, int y) {
+        Room[] chunk = chunks.get(chunkKey(floor, x, y));
+        return chunk == null ? null : chunk[cellIndex(x, y)];
+    }
+
+    /**
+     * Packs a floor and the chunk coordinates of a cell into one key (21 bits per axis).
+     */
+    private static long chunkKey(int floor, int x, int y) {
+        return ((long) floor << 42)
+                | (((long) (x >> CHUNK_BITS) & 0x1FFFFF) << 21)
+                | ((long) (y >> CHUNK_BITS) & 0x1FFFFF);
+    }
+
+    /**
+     * @return The index of a cell inside its chunk.
+     */
+    private static int cellIndex(int x, int y) {
+        return ((x & CHUNK_MASK) << CHUNK_BITS) | (y & CHUNK_MASK);
+    }
+
+    /**
+     * Redirects the map's output, e.g. when a map generated ahead by a MapPool is handed to a game.
+     * @param out The stream the ASCII map is printed to.
+     */
+    void setOut(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Turns quiet mode on or off. A quiet map does not print its ASCII map, so batch generation
+     * (simulations, the layout checks) does not format text nobody reads.
+     * @param quiet True to print nothing.
+     */
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+    }
+
+    /**
+     * Called by Room whenever a connection is added or changed, so cached paths are recomputed.
+     */
+    void connectionsChanged() {
+        connectionVersion++;
+    }
+
+    /**
+     * @return A counter that changes whenever any connection in the map changes.
+     */
+    public int getConnectionVersion() {
+        return connectionVersion;
+    }
+
+    /**
+     * @return The shortest-path cache of this map, created on first use.
+     */
+    public PathFinder getPathFinder() {
+        if (pathFinder == null) {
+            pathFinder = new PathFinder(this);
+        }
+        return pathFinder;
+    }
+
+    /**
+     * @return The Zobrist key of the game state on this map (see ZobristKeys).
+     */
+    public long getStateKey() {
+        return stateKey;
+    }
+
+    /**
+     * XORs a change into the state key. Called by Box, Player and BoxGirl whenever their state changes.
+     * @param key The key of the facts that stopped or started being true.
+     */
+    void toggleStateKey(long key) {
+        stateKey ^= key;
+    }
+
+    /**
+     * Overwrites the state key (used when rolling a game back to a saved state).
+     * @param key The key of the restored state.
+     */
+    void restoreStateKey(long key) {
+        stateKey = key;
+    }
+
+    /**
+     * Hands out the next box ID. IDs are allocated per map, so independent games never share a counter.
+     * @return A box ID unique within this map.
+     */
+    int nextBoxId() {
+        return nextBoxId++;
+    }
+
+    /**
+     * Adds a box to or removes it from the index of closed, empty boxes.
+     * Called by Box whenever its open flag or content changes.
+     * @param box The box whose state changed.
+     */
+    void updateFreeBox(Box box) {
+        int slot = box.getFreeSlot();
+        if (box.isFree()) {
+            if (slot >= 0) return;
+            if (freeCount == freeBoxes.length) {
+                freeBoxes = Arrays.copyOf(freeBoxes, freeCount * 2);
+            }
+            freeBoxes[freeCount] = box;
+            box.setFreeSlot(freeCount++);
+        } else if (slot >= 0) {
+            // Move the last entry into the vacated slot.
+            Box last = freeBoxes[--freeCount];
+            freeBoxes[slot] = last;
+            last.setFreeSlot(slot);
+            freeBoxes[freeCount] = null;
+            box.setFreeSlot(-1);
+        }
+    }
+
+    /**
+     * Picks a uniformly random closed, empty box in constant time.
+     * @param random The generator to draw from.
+     * @return A free box, or null if every box is open or filled.
+     */
+    public Box getRandomFreeBox(SplittableRandom random) {
+        return freeCount == 0 ? null : freeBoxes[random.nextInt(freeCount)];
+    }
+
+    /**
+     * @return The number of closed, empty boxes in the mansion.
+     */
+    public int getFreeBoxCount() {
+        return freeCount;
+    }
+
+    /**
+     * Adds a room to or removes it from the set of rooms that still have a hideable box.
+     * Called by Room whenever its hideable-box bitset changes.
+     * @param room The room whose boxes changed.
+     */
+    void updateHideableRoom(Room room) {
+        int slot = room.getHideableSlot();
+        if (room.hasHideableBox()) {
+            if (slot >= 0) return;
+            if (hideableCount == hideableRooms.length) {
+                hideableRooms = Arrays.copyOf(hideableRooms, hideableCount * 2);
+            }
+            hideableRooms[hideableCount] = room;
+            room.setHideableSlot(hideableCount++);
+        } else if (slot >= 0) {
+            Room last = hideableRooms[--hideableCount];
+            hideableRooms[slot] = last;
+            last.setHideableSlot(slot);
+            hideableRooms[hideableCount] = null;
+            room.setHideableSlot(-1);
+        }
+    }
+
+    /**
+     * @return True if any room in the mansion still has a closed, unoccupied box.
+     */
+    public boolean hasHideableRoom() {
+        return hideableCount > 0;
+    }
+
     /**
      * Generates the random mansion layout, placing rooms and establishing connections.
+     * The side rooms take their names and features from the game content (see GameContent);
+     * the features are drawn from a pool padded with "no feature" up to the number of names.
      */
     public void generateRandomMap() {
+        MapGenerationEvent event = new MapGenerationEvent();
+        event.begin();
 
-        List<String> roomNames = new ArrayList<>(Arrays.asList("Dining Room", "Living Room", "Bathroom", "Children's Room", "Study Room", "Guest Room"));
-        List<String> features = new ArrayList<>(Arrays.asList(null, null, null, "Rocking Chair (Hidden Exit)", "Seeping Walls (Corpse Location)", "Carved door (Miss Mary's Location)"));
-        Collections.shuffle(roomNames);
-        Collections.shuffle(features);
+        GameContent content = GameContent.get();
+        List<String> roomNames = new ArrayList<>(content.getRoomNames());
+        List<String> features = new ArrayList<>(Collections.nCopies(
+                Math.max(0, roomNames.size() - content.getFeatureTexts().size()), (String) null));
+        features.addAll(content.getFeatureTexts());
+        RandomUtils.shuffle(roomNames, random);
+        RandomUtils.shuffle(features, random);
 
-        Room basement = createRoom("Basement", 0, 1, null);
-        Room firstHall = createRoom("First Floor Hall", 3, 1, null);
-        Room secondHall = createRoom("Second Floor Hall", 7, 1, null);
+        Room basement = createRoom("Basement", 0, 0, 1, null);
+        Room firstHall = createRoom("First Floor Hall", 0, 3, 1, null);
+        Room secondHall = createRoom("Second Floor Hall", 0, 7, 1, null);
 
-        firstHall.addConnection("UP", secondHall);
-        secondHall.addConnection("DOWN", firstHall);
-        firstHall.addConnection("DOWN", basement);
-        basement.addConnection("UP", firstHall);
+        firstHall.addConnection(Direction.UP, secondHall);
+        secondHall.addConnection(Direction.DOWN, firstHall);
+        firstHall.addConnection(Direction.DOWN, basement);
+        basement.addConnection(Direction.UP, firstHall);
 
-        String[] directions = new String[]{"NORTH", "SOUTH", "EAST", "WEST"};
+        Direction[] directions = {Direction.NORTH, Direction.SOUTH, Direction.EAST, Direction.WEST};
         int nameIndex = 0, featIndex = 0;
 
         for (Room hall : Arrays.asList(firstHall, secondHall)) {
-            List<String> pool = new ArrayList<>(Arrays.asList(directions));
-            Collections.shuffle(pool);
-            List<String> chosen = pool.subList(0, 3);
-
-            int hx = -1, hy = -1;
-            for (int x = 0; x < size; x++) {
-                for (int y = 0; y < 3; y++) {
-                    if (mapGrid[x][y] == hall) { hx = x; hy = y; break; }
-                }
-                if (hx != -1) break;
-            }
+            List<Direction> pool = new ArrayList<>(Arrays.asList(directions));
+            RandomUtils.shuffle(pool, random);
+            List<Direction> chosen = pool.subList(0, 3);
+
+            int hx = hall.getX(), hy = hall.getY();
 
-            for (String dir : chosen) {
+            for (Direction dir : chosen) {
                 int nx = hx, ny = hy;
                 switch (dir) {
-                    case "NORTH": nx = hx - 1; break;
-                    case "SOUTH": nx = hx + 1; break;
-                    case "WEST": ny = hy - 1; break;
-                    case "EAST": ny = hy + 1; break;
+                    case NORTH: nx = hx - 1; break;
+                    case SOUTH: nx = hx + 1; break;
+                    case WEST: ny = hy - 1; break;
+                    case EAST: ny = hy + 1; break;
+                    default: break;
                 }
 
                 if (nx < 0) nx = hx + 1;
-                if (nx >= size) nx = hx - 1;
+                if (nx >= ROWS) nx = hx - 1;
                 if (ny < 0) ny = hy + 1;
-                if (ny >= size) ny = hy - 1;
+                if (ny >= COLS) ny = hy - 1;
 
-                if (mapGrid[nx][ny] != null) {
+                if (getRoomAt(0, nx, ny) != null) {
                     boolean placed = false;
                     for (int dx = -1; dx <= 1 && !placed; dx++) {
                         for (int dy = -1; dy <= 1 && !placed; dy++) {
                             int tx = hx + dx, ty = hy + dy;
-                            if (tx >= 0 && tx < size && ty >= 0 && ty < size && mapGrid[tx][ty] == null) {
+                            if (tx >= 0 && tx < ROWS && ty >= 0 && ty < COLS && getRoomAt(0, tx, ty) == null) {
                                 nx = tx; ny = ty; placed = true;
                             }
                         }
@@ -102,29 +321,145 @@ public class GameMap {
 
                 String rname = roomNames.get(nameIndex % roomNames.size()) + (nameIndex >= roomNames.size() ? "-" + nameIndex : "");
                 String feat = features.get(featIndex % features.size());
-                Room r = createRoom(rname, nx, ny, feat);
+                Room r = createRoom(rname, 0, nx, ny, feat);
 
                 hall.addConnection(dir, r);
-                String opp = dir.equals("NORTH") ? "SOUTH" : dir.equals("SOUTH") ? "NORTH" : dir.equals("EAST") ? "WEST" : "EAST";
-                r.addConnection(opp, hall);
+                r.addConnection(dir.opposite(), hall);
 
                 nameIndex++; featIndex++;
             }
         }
 
+        event.end();
+        if (event.shouldCommit()) {
+            event.layout = "classic";
+            event.rooms = roomList.size();
+            event.commit();
+        }
         printAsciiMap();
     }
 
     /**
-     * Prints a simple map of the grid layout to the console.
+     * Generates a large multi-floor mansion for stress tests, in time and memory linear in the number of rooms.
+     * Floor 0 is the Basement, floors 1 and 2 the First and Second Floor Halls, and every further floor has its
+     * own hall; the halls are stacked and linked by stairs. Side rooms grow outwards from each hall as a random
+     * tree on the grid, so every room is reachable. As in the classic villa, each room has its boxes and
+     * the special features of the game content are placed on different side rooms.
+     * @param floors The number of floors (at least 3).
+     * @param roomsPerFloor The number of rooms on each floor, including its hall (at least 2).
+     */
+    public void generateLargeMap(int floors, int roomsPerFloor) {
+        if (floors < 3 || roomsPerFloor < 2) {
+            throw new IllegalArgumentException("A large map needs at least 3 floors and 2 rooms per floor.");
+        }
+        MapGenerationEvent event = new MapGenerationEvent();
+        event.begin();
+
+        GameContent content = GameContent.get();
+        List<String> roomNames = new ArrayList<>(content.getRoomNames());
+        RandomUtils.shuffle(roomNames, random);
+
+        // Decide up front which side rooms get the features.
+        String[] features = content.getFeatureTexts().toArray(new String[0]);
+        long sideRooms = (long) floors * (roomsPerFloor - 1);
+        if (features.length > sideRooms) {
+            throw new IllegalArgumentException("A large map needs at least " + features.length + " side rooms.");
+        }
+        long[] featureAt = new long[features.length];
+        for (int i = 0; i < features.length; i++) {
+            boolean taken;
+            do {
+                featureAt[i] = random.nextLong(sideRooms);
+                taken = false;
+                for (int j = 0; j < i; j++) taken |= featureAt[j] == featureAt[i];
+            } while (taken);
+        }
+
+        Room[] frontier = new Room[roomsPerFloor];
+        Direction[] directions = {Direction.NORTH, Direction.SOUTH, Direction.EAST, Direction.WEST};
+        Room below = null;
+        long nameIndex = 0;
+
+        for (int floor = 0; floor < floors; floor++) {
+            String hallName = floor == 0 ? "Basement" : floor == 1 ? "First Floor Hall" : floor == 2 ? "Second Floor Hall" : "Floor " + floor + " Hall";
+            Room hall = createRoom(hallName, floor, 0, 0, null);
+            if (below != null) {
+                below.addConnection(Direction.UP, hall);
+                hall.addConnection(Direction.DOWN, below);
+            }
+            below = hall;
+
+            // Rooms that may still have an empty neighbouring cell; saturated ones are swap-removed.
+            frontier[0] = hall;
+            int frontierSize = 1;
+            int placed = 1;
+            while (placed < roomsPerFloor) {
+                int i = random.nextInt(frontierSize);
+                Room from = frontier[i];
+
+                // Pick a random empty neighbouring cell (reservoir sampling over the four directions).
+                Direction chosen = null;
+                int empty = 0;
+                for (Direction dir : directions) {
+                    if (getRoomAt(floor, stepX(from.getX(), dir), stepY(from.getY(), dir)) == null && random.nextInt(++empty) == 0) {
+                        chosen = dir;
+                    }
+                }
+                if (chosen == null) {
+                    frontier[i] = frontier[--frontierSize];
+                    continue;
+                }
+
+                String feature = null;
+                for (int f = 0; f < features.length; f++) {
+                    if (featureAt[f] == nameIndex) feature = features[f];
+                }
+                String name = roomNames.get((int) (nameIndex % roomNames.size())) + (nameIndex >= roomNames.size() ? "-" + nameIndex : "");
+                Room r = createRoom(name, floor, stepX(from.getX(), chosen), stepY(from.getY(), chosen), feature);
+                from.addConnection(chosen, r);
+                r.addConnection(chosen.opposite(), from);
+
+                frontier[frontierSize++] = r;
+                placed++;
+                nameIndex++;
+            }
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.layout = "large";
+            event.rooms = roomList.size();
+            event.commit();
+        }
+        if (!quiet) {
+            out.println("Generated a mansion of " + roomList.size() + " rooms on " + floors + " floors.");
+        }
+    }
+
+    /**
+     * @return The x-coordinate one step from x in the given direction (NORTH/SOUTH move along x).
+     */
+    private static int stepX(int x, Direction dir) {
+        return dir == Direction.NORTH ? x - 1 : dir == Direction.SOUTH ? x + 1 : x;
+    }
+
+    /**
+     * @return The y-coordinate one step from y in the given direction (WEST/EAST move along y).
+     */
+    private static int stepY(int y, Direction dir) {
+        return dir == Direction.WEST ? y - 1 : dir == Direction.EAST ? y + 1 : y;
+    }
+
+    /**
+     * Prints a simple map of the grid layout to the console, unless the map is quiet.
      */
     private void printAsciiMap() {
-        int cols = mapGrid[0].length;
-        System.out.println("\n------------------------ VILLA MAP ------------------------");
-        for (int x = 0; x < size; x++) {
+        if (quiet) return;
+        out.println("\n------------------------ VILLA MAP ------------------------");
+        for (int x = 0; x < ROWS; x++) {
             StringBuilder line = new StringBuilder();
-            for (int y = 0; y < cols; y++) {
-                Room r = mapGrid[x][y];
+            for (int y = 0; y < COLS; y++) {
+                Room r = getRoomAt(0, x, y);
                 if (r == null) {
                     line.append("[                 ] ");
                 } else {
@@ -132,27 +467,71 @@ public class GameMap {
                     line.append("[" + String.format("%-17s", n) + "] ");
                 }
             }
-            System.out.println(line.toString());
+            out.println(line.toString());
         }
-        System.out.println("------------------------- END MAP -------------------------\n");
+        out.println("------------------------- END MAP -------------------------\n");
     }
 
     /**
-     * Randomly distributes all items into the boxes across the mansion.
-     * @param allItems A list containing all Item objects (including "Empty Box" markers).
+     * Randomly distributes all items of a catalogue into the boxes across the mansion.
+     * The boxes refer to the items by ID from now on.
+     * @param catalogue The items to hide (including "Empty Box" markers).
      */
-    public void distributeItems(List<Item> allItems) {
-        List<Box> allBoxes = new ArrayList<>();
-        allRooms.values().forEach(room -> allBoxes.addAll(room.getBoxes()));
+    public void distributeItems(ItemCatalogue catalogue) {
+        DistributeItemsEvent event = new DistributeItemsEvent();
+        event.begin();
+        this.catalogue = catalogue;
+        List<Box> boxes = getAllBoxes();
+        int[] ids = new int[catalogue.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 1;
+        }
+        RandomUtils.shuffle(ids, ids.length, random);
 
-        Collections.shuffle(allItems);
-        Collections.shuffle(allBoxes);
+        boolean sampled = ids.length * 2 < boxes.size();
+        if (sampled) {
+            // Large mansions: draw distinct random boxes instead of shuffling millions of them.
+            Set<Integer> used = new HashSet<>();
+            for (int id : ids) {
+                int index;
+                do {
+                    index = random.nextInt(boxes.size());
+                } while (!used.add(index));
+                boxes.get(index).setContentId(id);
+            }
+        } else {
+            List<Box> shuffled = new ArrayList<>(boxes);
+            RandomUtils.shuffle(shuffled, random);
 
-        for (int i = 0; i < Math.min(allItems.size(), allBoxes.size()); i++) {
-            allBoxes.get(i).setContent(allItems.get(i));
+            for (int i = 0; i < Math.min(ids.length, shuffled.size()); i++) {
+                shuffled.get(i).setContentId(ids[i]);
+            }
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.items = ids.length;
+            event.boxes = boxes.size();
+            event.sampled = sampled;
+            event.commit();
         }
     }
 
+    /**
+     * @return The items the boxes refer to, or null before any were distributed.
+     */
+    public ItemCatalogue getCatalogue() {
+        return catalogue;
+    }
+
+    /**
+     * Sets the items the boxes refer to without distributing them (used when loading a saved game).
+     * @param catalogue The catalogue.
+     */
+    void restoreCatalogue(ItemCatalogue catalogue) {
+        this.catalogue = catalogue;
+    }
+
     /**
      * Retrieves a room by its name.
      * @param name The name of the room.
@@ -161,11 +540,22 @@ public class GameMap {
     public Room getRoom(String name) { return allRooms.get(name); }
 
     /**
-     * @return A list of all boxes in the mansion.
+     * @return A read-only list of every room, in the order they were generated.
+     */
+    public List<Room> getRooms() {
+        return Collections.unmodifiableList(roomList);
+    }
+
+    /**
+     * The list is built once after the rooms are created and shared afterwards.
+     * @return A read-only list of all boxes in the mansion.
      */
     public List<Box> getAllBoxes() {
-        List<Box> boxes = new ArrayList<>();
-        allRooms.values().forEach(room -> boxes.addAll(room.getBoxes()));
-        return boxes;
+        if (allBoxes == null) {
+            List<Box> boxes = new ArrayList<>(roomList.size() * Room.BOXES_PER_ROOM);
+            roomList.forEach(room -> boxes.addAll(room.getBoxes()));
+            allBoxes = Collections.unmodifiableList(boxes);
+        }
+        return allBoxes;
     }
 }
@@ -0,0 +1,332 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms of the game loop, shared by any number of games.
+ * Every counter is a LongAdder, so thousands of sessions or simulation threads can update
+ * the same instance without contending. Games only record when a GameMetrics is attached
+ * with Game.setMetrics, so games without one pay nothing. Timing a turn costs a few
+ * System.nanoTime calls, so latencies can be sampled on every Nth turn instead of all of them.
+ */
+public class GameMetrics implements GameMetricsMXBean {
+    private int sampleMask;
+    private LatencyHistogram playerAction = new LatencyHistogram();
+    private LatencyHistogram[] passiveTriggers = { new LatencyHistogram(), new LatencyHistogram() };
+    private LongAdder randomMoveRetries = new LongAdder();
+    private LongAdder noBoxFoundFallbacks = new LongAdder();
+    private Map<String, LongAdder> skillActivations = new ConcurrentHashMap<>();
+    private LongAdder boxesOpened = new LongAdder();
+    private LongAdder games = new LongAdder();
+    private LongAdder wins = new LongAdder();
+    private LongAdder losses = new LongAdder();
+    private LongAdder unfinished = new LongAdder();
+    private LongAdder mapPoolHits = new LongAdder();
+    private LongAdder mapPoolMisses = new LongAdder();
+    private LongAdder mapPoolRejects = new LongAdder();
+    private volatile int mapPoolDepth;
+    private volatile int mapPoolTarget;
+
+    /**
+     * Constructs metrics that time every turn.
+     */
+    public GameMetrics() {
+        this(1);
+    }
+
+    /**
+     * Constructs metrics that time only some turns; counters still see every event.
+     * @param sampleInterval Time one turn in this many (a power of two).
+     */
+    public GameMetrics(int sampleInterval) {
+        if (sampleInterval < 1 || Integer.bitCount(sampleInterval) != 1) {
+            throw new IllegalArgumentException("Sample interval must be a power of two: " + sampleInterval);
+        }
+        this.sampleMask = sampleInterval - 1;
+    }
+
+    /**
+     * @param turnCount The number of turns the game has played so far.
+     * @return True if the next turn should be timed.
+     */
+    public boolean isSampled(int turnCount) {
+        return (turnCount & sampleMask) == 0;
+    }
+
+    /**
+     * Registers this instance with the platform MBean server as boxgirl:type=GameMetrics,name=NAME.
+     * @param name The name distinguishing this instance (e.g. "server" or "simulation").
+     */
+    public void registerMBean(String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                    new ObjectName("boxgirl:type=GameMetrics,name=" + ObjectName.quote(name)));
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the metrics MBean " + name, e);
+        }
+    }
+
+    /**
+     * Prints the text dump to a stream at a fixed rate on a background daemon thread.
+     * @param out The stream to print to.
+     * @param periodSeconds The time between two dumps.
+     * @return The scheduler, so the caller can shut it down.
+     */
+    public ScheduledExecutorService startPeriodicDump(PrintStream out, long periodSeconds) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> out.println(dump()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        return scheduler;
+    }
+
+    /**
+     * Records the duration of a player's action.
+     * @param nanos The time spent in the action, excluding time waiting for input.
+     */
+    public void recordPlayerAction(long nanos) {
+        playerAction.record(nanos);
+    }
+
+    /**
+     * Records the duration of a Box Girl's passive triggers.
+     * @param girl 0 for the first Box Girl, 1 for her sisters and any other hunters.
+     * @param nanos The time spent in checkPassiveTriggers.
+     */
+    public void recordPassiveTriggers(int girl, long nanos) {
+        passiveTriggers[girl].record(nanos);
+    }
+
+    /**
+     * Counts a randomMove attempt that found no free box and tried again.
+     */
+    public void recordRandomMoveRetry() {
+        randomMoveRetries.increment();
+    }
+
+    /**
+     * Counts a Box Girl giving up on finding a box to hide in.
+     */
+    public void recordNoBoxFound() {
+        noBoxFoundFallbacks.increment();
+    }
+
+    /**
+     * Counts a skill activation.
+     * @param skillName The name of the activated skill.
+     */
+    public void recordSkill(String skillName) {
+        LongAdder counter = skillActivations.get(skillName);
+        if (counter == null) {
+            counter = skillActivations.computeIfAbsent(skillName, name -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * Counts a new game taking its layout from a MapPool.
+     * @param hit True if a ready layout was taken, false if the pool was empty and one was generated.
+     */
+    public void recordMapPoolTake(boolean hit) {
+        (hit ? mapPoolHits : mapPoolMisses).increment();
+    }
+
+    /**
+     * Counts a layout a MapPool generated but rejected as unwinnable (see LayoutAnalyzer).
+     */
+    public void recordMapPoolReject() {
+        mapPoolRejects.increment();
+    }
+
+    /**
+     * Records the current size of a MapPool.
+     * @param depth The number of ready layouts.
+     * @param target The size the pool's producer fills it up to.
+     */
+    public void recordMapPoolDepth(int depth, int target) {
+        mapPoolDepth = depth;
+        mapPoolTarget = target;
+    }
+
+    /**
+     * Records a game whose loop has stopped.
+     * @param isGameOver True if the game ended.
+     * @param isWin True if the player won.
+     * @param boxesOpened The number of boxes opened during the game.
+     */
+    public void recordGame(boolean isGameOver, boolean isWin, int boxesOpened) {
+        games.increment();
+        this.boxesOpened.add(boxesOpened);
+        if (!isGameOver) {
+            unfinished.increment();
+        } else if (isWin) {
+            wins.increment();
+        } else {
+            losses.increment();
+        }
+    }
+
+    /**
+     * @return The histogram of player action times.
+     */
+    public LatencyHistogram getPlayerActionHistogram() {
+        return playerAction;
+    }
+
+    /**
+     * @param girl 0 for the first Box Girl, 1 for her sisters and any other hunters.
+     * @return The histogram of that Box Girl's passive trigger times.
+     */
+    public LatencyHistogram getPassiveTriggersHistogram(int girl) {
+        return passiveTriggers[girl];
+    }
+
+    @Override
+    public long getTimedTurns() {
+        return playerAction.getCount();
+    }
+
+    @Override
+    public double getPlayerActionMeanNanos() {
+        return playerAction.getMeanNanos();
+    }
+
+    @Override
+    public long getPlayerActionP99Nanos() {
+        return playerAction.getPercentileNanos(99);
+    }
+
+    @Override
+    public double getBoxGirlPassiveMeanNanos() {
+        return passiveTriggers[0].getMeanNanos();
+    }
+
+    @Override
+    public long getBoxGirlPassiveP99Nanos() {
+        return passiveTriggers[0].getPercentileNanos(99);
+    }
+
+    @Override
+    public double getSisterPassiveMeanNanos() {
+        return passiveTriggers[1].getMeanNanos();
+    }
+
+    @Override
+    public long getSisterPassiveP99Nanos() {
+        return passiveTriggers[1].getPercentileNanos(99);
+    }
+
+    @Override
+    public long getRandomMoveRetries() {
+        return randomMoveRetries.sum();
+    }
+
+    @Override
+    public long getNoBoxFoundFallbacks() {
+        return noBoxFoundFallbacks.sum();
+    }
+
+    @Override
+    public Map<String, Long> getSkillActivations() {
+        Map<String, Long> counts = new TreeMap<>();
+        skillActivations.forEach((name, counter) -> counts.put(name, counter.sum()));
+        return counts;
+    }
+
+    @Override
+    public long getBoxesOpened() {
+        return boxesOpened.sum();
+    }
+
+    @Override
+    public double getBoxesOpenedPerGame() {
+        long count = games.sum();
+        return count == 0 ? 0 : (double) boxesOpened.sum() / count;
+    }
+
+    @Override
+    public long getWins() {
+        return wins.sum();
+    }
+
+    @Override
+    public long getLosses() {
+        return losses.sum();
+    }
+
+    @Override
+    public long getUnfinished() {
+        return unfinished.sum();
+    }
+
+    @Override
+    public long getMapPoolHits() {
+        return mapPoolHits.sum();
+    }
+
+    @Override
+    public long getMapPoolMisses() {
+        return mapPoolMisses.sum();
+    }
+
+    @Override
+    public long getMapPoolRejects() {
+        return mapPoolRejects.sum();
+    }
+
+    @Override
+    public int getMapPoolDepth() {
+        return mapPoolDepth;
+    }
+
+    @Override
+    public int getMapPoolTarget() {
+        return mapPoolTarget;
+    }
+
+    @Override
+    public String dump() {
+        return "--- Game metrics ---\n"
+                + "Player action:          " + playerAction + "\n"
+                + "Box Girl passive:       " + passiveTriggers[0] + "\n"
+                + "Other hunters passive:  " + passiveTriggers[1] + "\n"
+                + "randomMove retries:     " + getRandomMoveRetries() + "\n"
+                + "No box found fallbacks: " + getNoBoxFoundFallbacks() + "\n"
+                + "Skill activations:      " + getSkillActivations() + "\n"
+                + String.format("Boxes opened:           %d (%.2f per game)%n", getBoxesOpened(), getBoxesOpenedPerGame())
+                + "Outcomes:               " + getWins() + " wins, " + getLosses() + " losses, "
+                + getUnfinished() + " unfinished\n"
+                + "Map pool:               depth " + mapPoolDepth + "/" + mapPoolTarget + ", "
+                + getMapPoolHits() + " hits, " + getMapPoolMisses() + " misses, "
+                + getMapPoolRejects() + " layouts rejected";
+    }
+
+    @Override
+    public void reset() {
+        playerAction.reset();
+        for (LatencyHistogram histogram : passiveTriggers) {
+            histogram.reset();
+        }
+        randomMoveRetries.reset();
+        noBoxFoundFallbacks.reset();
+        skillActivations.clear();
+        boxesOpened.reset();
+        games.reset();
+        wins.reset();
+        losses.reset();
+        unfinished.reset();
+        mapPoolHits.reset();
+        mapPoolMisses.reset();
+        mapPoolRejects.reset();
+    }
+}
@@ -0,0 +1,73 @@
+import java.util.Map;
+
+/**
+ * The JMX view of GameMetrics (shown e.g. in JConsole under "boxgirl").
+ */
+public interface GameMetricsMXBean {
+
+    /** @return The number of turns whose latency was recorded. */
+    long getTimedTurns();
+
+    /** @return The mean time of the player's action, excluding time spent waiting for input. */
+    double getPlayerActionMeanNanos();
+
+    /** @return The 99th percentile upper bound of the player's action time. */
+    long getPlayerActionP99Nanos();
+
+    /** @return The mean time of the first Box Girl's passive triggers. */
+    double getBoxGirlPassiveMeanNanos();
+
+    /** @return The 99th percentile upper bound of the first Box Girl's passive triggers. */
+    long getBoxGirlPassiveP99Nanos();
+
+    /** @return The mean time of the other Box Girls' passive triggers (sisters and added hunters). */
+    double getSisterPassiveMeanNanos();
+
+    /** @return The 99th percentile upper bound of the other Box Girls' passive triggers. */
+    long getSisterPassiveP99Nanos();
+
+    /** @return How often randomMove retried because the chosen room had no free box. */
+    long getRandomMoveRetries();
+
+    /** @return How often a Box Girl gave up looking for a box (handleNoBoxFound). */
+    long getNoBoxFoundFallbacks();
+
+    /** @return Skill activations per skill name. */
+    Map<String, Long> getSkillActivations();
+
+    /** @return The number of boxes opened by players (including forced openings). */
+    long getBoxesOpened();
+
+    /** @return The mean number of boxes opened per finished or abandoned game. */
+    double getBoxesOpenedPerGame();
+
+    /** @return The number of games won. */
+    long getWins();
+
+    /** @return The number of games lost. */
+    long getLosses();
+
+    /** @return The number of games stopped by the turn limit. */
+    long getUnfinished();
+
+    /** @return The number of games that took a ready layout from a MapPool. */
+    long getMapPoolHits();
+
+    /** @return The number of games that found the MapPool empty and generated their own layout. */
+    long getMapPoolMisses();
+
+    /** @return The number of layouts the MapPool generated but rejected as unwinnable. */
+    long getMapPoolRejects();
+
+    /** @return The number of ready layouts in the MapPool when last recorded. */
+    int getMapPoolDepth();
+
+    /** @return The size the MapPool's producer fills it up to, when last recorded. */
+    int getMapPoolTarget();
+
+    /** @return A multi-line text dump of all metrics. */
+    String dump();
+
+    /** Resets every counter and histogram. */
+    void reset();
+}
@@ -0,0 +1,138 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many independent games in one process. Every TCP connection gets its own Game,
+ * with its own input/output streams and seed, running on its own virtual thread.
+ * Usage: java GameServer [port] [journalDir]   (then e.g. telnet 127.0.0.1 4000)
+ * With a journal directory, every session is recorded to session-SEED.journal for replay.
+ * All sessions record into one GameMetrics, exposed over JMX and printed every minute.
+ * New sessions take their map from a MapPool, so a new game does not wait for map generation.
+ * A client that sends nothing for IDLE_TIMEOUT_MILLIS is disconnected, so idle or half-open
+ * connections do not hold on to their game.
+ */
+public class GameServer {
+    /** How long a session waits for the client's next line before it is ended. */
+    static final int IDLE_TIMEOUT_MILLIS = 5 * 60 * 1000;
+
+    private int port;
+    private Path journalDir;
+    private AtomicInteger activeSessions = new AtomicInteger();
+    private GameMetrics metrics = new GameMetrics();
+
+    /**
+     * Constructs a server that will listen on the loopback interface.
+     * @param port The TCP port to listen on.
+     */
+    public GameServer(int port) {
+        this(port, null);
+    }
+
+    /**
+     * Constructs a server that records every session in a turn journal.
+     * @param port The TCP port to listen on.
+     * @param journalDir The directory for the session journals, or null to record nothing.
+     */
+    public GameServer(int port, Path journalDir) {
+        this.port = port;
+        this.journalDir = journalDir;
+    }
+
+    /**
+     * Starts the server on the given port (4000 by default).
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+        Path journalDir = args.length > 1 ? Paths.get(args[1]) : null;
+        new GameServer(port, journalDir).serve();
+    }
+
+    /**
+     * Accepts connections forever, starting one game session per connection.
+     */
+    public void serve() throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+             MapPool pool = new MapPool(new GameConfig(), 16, 1024, metrics);
+             ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor()) {
+            System.out.println("Game server listening on " + server.getLocalSocketAddress());
+            metrics.registerMBean("server-" + port);
+            metrics.startPeriodicDump(System.out, 60);
+            while (true) {
+                Socket socket = server.accept();
+                sessions.execute(() -> runSession(socket, pool));
+            }
+        }
+    }
+
+    /**
+     * Plays one game over a socket until it ends or the client disconnects.
+     * @param socket The client connection.
+     * @param pool The pool the map of this session's game is taken from.
+     */
+    private void runSession(Socket socket, MapPool pool) {
+        long seed = 0;
+        activeSessions.incrementAndGet();
+        try (socket) {
+            MapPool.Layout layout = pool.take();
+            seed = layout.getSeed();
+            socket.setSoTimeout(IDLE_TIMEOUT_MILLIS);
+            PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), false, StandardCharsets.UTF_8);
+            Game game = new Game(new ScannerCommandSource(socket.getInputStream()), out, seed);
+            game.setLayout(layout);
+            JournalWriter journal = journalDir == null ? null
+                    : new JournalWriter(journalDir.resolve("session-" + seed + ".journal"));
+            game.setJournal(journal);
+            game.setMetrics(metrics);
+            try {
+                game.start();
+            } catch (NoSuchElementException e) {
+                // The client closed its input before the game ended.
+            } catch (UncheckedIOException e) {
+                if (!(e.getCause() instanceof SocketTimeoutException)) {
+                    throw e.getCause();
+                }
+                // The client was idle for too long: end the session the same way.
+                System.out.println("Session " + seed + " timed out");
+            } finally {
+                if (journal != null) {
+                    journal.close();
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            System.out.println("Session " + seed + " ended with an error: " + e.getMessage());
+        } catch (IllegalStateException e) {
+            // The pool could not make a winnable layout; the connection is closed all the same.
+            System.out.println("Session could not start: " + e.getMessage());
+        } finally {
+            activeSessions.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return The number of games currently being played.
+     */
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * @return The metrics all sessions record to.
+     */
+    public GameMetrics getMetrics() {
+        return metrics;
+    }
+}
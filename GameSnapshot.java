@@ -0,0 +1,258 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Saves a running game to a compact binary snapshot and loads it back, using NIO buffers
+ * rather than Java serialization.
+ *
+ * Layout (version 3, big-endian):
+ * magic, version, seed, game generator seed, turn count, flags, balance config;
+ * rooms (name, floor, x, y, feature); exits per room (direction bitmask + room indexes);
+ * boxes in ID order (open flag + item ID); player (room, inventory item IDs);
+ * Box Girls in number order (generator seed, room, hiding box ID, period, unlocked skill item IDs).
+ * Items are written as their ItemCatalogue ID minus one (-1 for an empty box); the catalogue
+ * follows from the saved config.
+ *
+ * SplittableRandom does not expose its state, so saving draws fresh seeds for the game and each
+ * Box Girl and reseeds the running game with them too: the saved and the running game then make
+ * the same random decisions from this point on.
+ */
+public final class GameSnapshot {
+    private static final int MAGIC = 0x42584753; // "BXGS"
+    private static final short VERSION = 3;
+
+    private static final int FLAG_GAME_OVER = 1;
+    private static final int FLAG_WIN = 2;
+    private static final int FLAG_HUNTING = 4;
+
+    private GameSnapshot() {}
+
+    /**
+     * Writes a game into a new buffer.
+     * @param game The game to save (its generators are reseeded, see the class comment).
+     * @return A buffer positioned at 0 whose limit is the snapshot size in bytes.
+     */
+    public static ByteBuffer save(Game game) {
+        GameMap map = game.getMap();
+        List<Room> rooms = map.getRooms();
+        ItemCatalogue catalogue = game.getCatalogue();
+
+        HunterRegistry hunters = game.getHunters();
+        int size = 64 + GameConfig.BYTES + rooms.size() * (32 + Direction.COUNT * 4 + Room.BOXES_PER_ROOM * 3)
+                + catalogue.size() * 4 + hunters.size() * 22;
+        for (int i = 0; i < hunters.size(); i++) {
+            size += hunters.get(i).getUnlockedSkills().size() * 2;
+        }
+        for (Room room : rooms) {
+            size += utf8Length(room.getName()) + utf8Length(room.getFeatureItem());
+        }
+        ByteBuffer buf = ByteBuffer.allocate(size);
+
+        long[] girlSeeds = new long[hunters.size()];
+        for (int i = 0; i < girlSeeds.length; i++) {
+            girlSeeds[i] = game.getRandom().nextLong();
+        }
+        long gameSeed = game.getRandom().nextLong();
+        for (int i = 0; i < girlSeeds.length; i++) {
+            hunters.get(i).reseed(girlSeeds[i]);
+        }
+        game.reseed(gameSeed);
+        int flags = (game.isGameOver() ? FLAG_GAME_OVER : 0) | (game.isWin() ? FLAG_WIN : 0)
+                | (game.isHuntingMode() ? FLAG_HUNTING : 0);
+        buf.putInt(MAGIC).putShort(VERSION).putLong(game.getSeed()).putLong(gameSeed)
+           .putInt(game.getTurnCount()).put((byte) flags);
+        game.getConfig().writeTo(buf);
+
+        buf.putInt(rooms.size());
+        for (Room room : rooms) {
+            putString(buf, room.getName());
+            buf.putInt(room.getFloor()).putInt(room.getX()).putInt(room.getY());
+            putString(buf, room.getFeatureItem());
+        }
+        for (Room room : rooms) {
+            int mask = 0;
+            for (Direction d : Direction.values()) {
+                if (room.getNeighbor(d) != null) mask |= 1 << d.ordinal();
+            }
+            buf.put((byte) mask);
+            for (Direction d : Direction.values()) {
+                if (room.getNeighbor(d) != null) buf.putInt(room.getNeighbor(d).getIndex());
+            }
+        }
+        for (Box box : map.getAllBoxes()) {
+            buf.put((byte) (box.isOpen() ? 1 : 0));
+            buf.putShort((short) (box.getContentId() - 1));
+        }
+
+        Player player = game.getPlayer();
+        buf.putInt(player.getCurrentRoom().getIndex());
+        putItems(buf, player.getInventory(), catalogue);
+
+        buf.putShort((short) hunters.size());
+        for (int i = 0; i < girlSeeds.length; i++) {
+            putBoxGirl(buf, hunters.get(i), girlSeeds[i], catalogue);
+        }
+
+        buf.flip();
+        return buf;
+    }
+
+    /**
+     * Rebuilds a game from a snapshot.
+     * @param buf A buffer positioned at the start of a snapshot.
+     * @param input The command source for the loaded game.
+     * @param out The output stream for the loaded game.
+     * @return The restored game, ready to continue.
+     * @throws IllegalArgumentException If the buffer does not hold a snapshot of a supported version.
+     */
+    public static Game load(ByteBuffer buf, CommandSource input, PrintStream out) {
+        if (buf.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a saved game.");
+        }
+        short version = buf.getShort();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported saved game version: " + version);
+        }
+        long seed = buf.getLong();
+        long gameSeed = buf.getLong();
+        int turnCount = buf.getInt();
+        int flags = buf.get();
+        GameConfig config = GameConfig.readFrom(buf);
+        ItemCatalogue catalogue = ItemCatalogue.of(config);
+
+        Game game = new Game(input, out, seed);
+        game.setConfig(config);
+        GameMap map = new GameMap(out, new SplittableRandom(gameSeed));
+        map.restoreCatalogue(catalogue);
+
+        int roomCount = buf.getInt();
+        for (int i = 0; i < roomCount; i++) {
+            String name = getString(buf);
+            int floor = buf.getInt(), x = buf.getInt(), y = buf.getInt();
+            map.restoreRoom(name, floor, x, y, getString(buf));
+        }
+        List<Room> rooms = map.getRooms();
+        for (Room room : rooms) {
+            int mask = buf.get();
+            for (Direction d : Direction.values()) {
+                if ((mask & (1 << d.ordinal())) != 0) room.addConnection(d, rooms.get(buf.getInt()));
+            }
+        }
+
+        for (Box box : map.getAllBoxes()) {
+            boolean open = buf.get() != 0;
+            short content = buf.getShort();
+            box.restoreState(open, content + 1);
+        }
+
+        Player player = new Player(rooms.get(buf.getInt()), game);
+        int inventorySize = buf.getShort();
+        for (int i = 0; i < inventorySize; i++) {
+            player.restoreItem(buf.getShort() + 1);
+        }
+
+        int girls = buf.getShort();
+        for (int i = 0; i < girls; i++) {
+            getBoxGirl(buf, game, map, catalogue);
+        }
+
+        // Box Girl construction draws from the game's generator, so reseed it last.
+        game.reseed(gameSeed);
+        game.restore(map, player, turnCount,
+                (flags & FLAG_GAME_OVER) != 0, (flags & FLAG_WIN) != 0, (flags & FLAG_HUNTING) != 0);
+        return game;
+    }
+
+    /**
+     * Saves a game to a file.
+     * @param game The game to save.
+     * @param file The file to (over)write.
+     * @return The size of the snapshot in bytes.
+     */
+    public static int saveToFile(Game game, Path file) throws IOException {
+        ByteBuffer buf = save(game);
+        int size = buf.remaining();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Loads a game from a file written by saveToFile.
+     * @param file The snapshot file.
+     * @param input The command source for the loaded game.
+     * @param out The output stream for the loaded game.
+     * @return The restored game.
+     */
+    public static Game loadFromFile(Path file, CommandSource input, PrintStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate((int) channel.size());
+            while (buf.hasRemaining() && channel.read(buf) >= 0) {
+                // keep reading until the buffer is full
+            }
+            buf.flip();
+            return load(buf, input, out);
+        }
+    }
+
+    private static void putBoxGirl(ByteBuffer buf, BoxGirl girl, long seed, ItemCatalogue catalogue) {
+        buf.putLong(seed);
+        buf.putInt(girl.getCurrentRoom().getIndex());
+        buf.putInt(girl.getHiddenInBox() == null ? 0 : girl.getHiddenInBox().getId());
+        buf.putInt(girl.getPeriod());
+        putItems(buf, girl.getUnlockedSkills(), catalogue);
+    }
+
+    private static BoxGirl getBoxGirl(ByteBuffer buf, Game game, GameMap map, ItemCatalogue catalogue) {
+        long seed = buf.getLong();
+        Room room = map.getRooms().get(buf.getInt());
+        int boxId = buf.getInt();
+        BoxGirl girl = new BoxGirl(room, boxId == 0 ? null : map.getAllBoxes().get(boxId - 1), game);
+        girl.reseed(seed);
+        girl.setPeriod(buf.getInt());
+        int skills = buf.getShort();
+        for (int i = 0; i < skills; i++) {
+            girl.restoreSkill((Manuscript) catalogue.get(buf.getShort() + 1));
+        }
+        return girl;
+    }
+
+    private static void putItems(ByteBuffer buf, List<? extends Item> list, ItemCatalogue catalogue) {
+        buf.putShort((short) list.size());
+        for (Item item : list) {
+            buf.putShort((short) (catalogue.idOf(item) - 1));
+        }
+    }
+
+    private static void putString(ByteBuffer buf, String s) {
+        if (s == null) {
+            buf.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        buf.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buf) {
+        int length = buf.getShort();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int utf8Length(String s) {
+        return s == null ? 2 : 2 + s.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,142 @@
+import java.util.List;
+
+/**
+ * The mutable part of a game (box states, player, Box Girls, turn and outcome) captured
+ * into flat arrays, so the game can be rolled back to it in place without rebuilding the
+ * mansion. Rooms, boxes and items are stored by index, so a state captured from one game
+ * can be restored onto any other game generated from the same seed and config.
+ * Generators are not part of the state; reseed the game after restoring if needed.
+ */
+public class GameState {
+    private int turnCount;
+    private long stateKey;
+    private boolean isGameOver;
+    private boolean isWin;
+    private boolean[] boxOpen;
+    /** The item ID in each box (see ItemCatalogue), or 0 for none. */
+    private short[] boxContent;
+    /** The number of the Box Girl hiding in each box plus one, or 0 for nobody. */
+    private short[] boxOccupant;
+    private int playerRoom;
+    private short[] inventory;
+    private int[] girlRoom;
+    private int[] girlBox;
+    private int[] girlPeriod;
+    private short[][] girlSkills;
+
+    private GameState() {
+    }
+
+    /**
+     * Captures the current state of a game.
+     * @param game A game that has been initialized.
+     * @return The captured state.
+     */
+    public static GameState capture(Game game) {
+        GameState state = new GameState();
+        ItemCatalogue catalogue = game.getCatalogue();
+
+        state.turnCount = game.getTurnCount();
+        state.stateKey = game.getStateKey();
+        state.isGameOver = game.isGameOver();
+        state.isWin = game.isWin();
+
+        List<Box> boxes = game.getMap().getAllBoxes();
+        state.boxOpen = new boolean[boxes.size()];
+        state.boxContent = new short[boxes.size()];
+        state.boxOccupant = new short[boxes.size()];
+        for (int i = 0; i < boxes.size(); i++) {
+            Box box = boxes.get(i);
+            state.boxOpen[i] = box.isOpen();
+            state.boxContent[i] = (short) box.getContentId();
+            BoxGirl occupant = box.getHiddenOccupant();
+            state.boxOccupant[i] = (short) (occupant == null ? 0 : occupant.getNumber() + 1);
+        }
+
+        Player player = game.getPlayer();
+        state.playerRoom = player.getCurrentRoom().getIndex();
+        state.inventory = new short[player.getInventory().size()];
+        for (int i = 0; i < state.inventory.length; i++) {
+            state.inventory[i] = (short) player.getItemId(i);
+        }
+
+        HunterRegistry hunters = game.getHunters();
+        int count = hunters.size();
+        state.girlRoom = new int[count];
+        state.girlBox = new int[count];
+        state.girlPeriod = new int[count];
+        state.girlSkills = new short[count][];
+        for (int i = 0; i < count; i++) {
+            BoxGirl girl = hunters.get(i);
+            state.girlRoom[i] = girl.getCurrentRoom().getIndex();
+            state.girlBox[i] = girl.getHiddenInBox() == null ? 0 : girl.getHiddenInBox().getId();
+            state.girlPeriod[i] = girl.getPeriod();
+            List<Manuscript> skills = girl.getUnlockedSkills();
+            state.girlSkills[i] = new short[skills.size()];
+            for (int s = 0; s < skills.size(); s++) {
+                state.girlSkills[i][s] = (short) catalogue.idOf(skills.get(s));
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Rolls a game back to this state, reusing its rooms, boxes, items, player and Box Girls.
+     * @param game A game generated from the same seed and config as the captured one.
+     */
+    public void restore(Game game) {
+        GameMap map = game.getMap();
+        List<Room> rooms = map.getRooms();
+        List<Box> boxes = map.getAllBoxes();
+        ItemCatalogue catalogue = game.getCatalogue();
+
+        // Box Girls released after the capture are dropped; missing ones are created (and numbered) in order.
+        HunterRegistry hunters = game.getHunters();
+        hunters.truncate(girlRoom.length);
+        for (int i = hunters.size(); i < girlRoom.length; i++) {
+            new BoxGirl(rooms.get(girlRoom[i]), null, game);
+        }
+
+        for (int i = 0; i < boxes.size(); i++) {
+            BoxGirl occupant = boxOccupant[i] == 0 ? null : hunters.get(boxOccupant[i] - 1);
+            boxes.get(i).restoreState(boxOpen[i], boxContent[i], occupant);
+        }
+
+        Player player = game.getPlayer();
+        player.clearInventory();
+        player.restoreRoom(rooms.get(playerRoom));
+        for (short item : inventory) {
+            player.restoreItem(item);
+        }
+
+        for (int i = 0; i < girlRoom.length; i++) {
+            restoreGirl(hunters.get(i), i, rooms, boxes, catalogue);
+        }
+        // Dropped Box Girls are not XORed out of the state key, so set it outright.
+        map.restoreStateKey(stateKey);
+        game.restore(map, player, turnCount, isGameOver, isWin, game.isHuntingMode());
+    }
+
+    private void restoreGirl(BoxGirl girl, int i, List<Room> rooms, List<Box> boxes, ItemCatalogue catalogue) {
+        Manuscript[] skills = new Manuscript[girlSkills[i].length];
+        for (int s = 0; s < skills.length; s++) {
+            skills[s] = (Manuscript) catalogue.get(girlSkills[i][s]);
+        }
+        girl.restoreState(rooms.get(girlRoom[i]), girlBox[i] == 0 ? null : boxes.get(girlBox[i] - 1), skills);
+        girl.setPeriod(girlPeriod[i]);
+    }
+
+    /**
+     * @return The Zobrist key of the captured state (see ZobristKeys).
+     */
+    public long getStateKey() {
+        return stateKey;
+    }
+
+    /**
+     * @return The turn count of the captured game.
+     */
+    public int getTurnCount() {
+        return turnCount;
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.List;
+
+/**
+ * The PlayerView of a game played on the object graph (see PlayerView).
+ */
+class GameView implements PlayerView {
+    private Game game;
+
+    /**
+     * Constructs the view of a game.
+     * @param game The game to look at.
+     */
+    GameView(Game game) {
+        this.game = game;
+    }
+
+    private Room room() {
+        return game.getPlayer().getCurrentRoom();
+    }
+
+    @Override
+    public int getTurnCount() {
+        return game.getTurnCount();
+    }
+
+    @Override
+    public String getRoomName() {
+        return room().getName();
+    }
+
+    @Override
+    public String getRoomFeature() {
+        return room().getFeatureItem();
+    }
+
+    @Override
+    public Feature getRoomFeatureKind() {
+        return room().getFeature();
+    }
+
+    @Override
+    public int getRoomIndex() {
+        return room().getIndex();
+    }
+
+    @Override
+    public int getRoomCount() {
+        return game.getMap().getRooms().size();
+    }
+
+    @Override
+    public int getExitCount() {
+        return room().getExitCount();
+    }
+
+    @Override
+    public Direction getExit(int i) {
+        return room().getExit(i);
+    }
+
+    @Override
+    public int getExitRoomIndex(int i) {
+        return room().getAdjacentRoom(i).getIndex();
+    }
+
+    @Override
+    public int getBoxCount() {
+        return room().getBoxes().size();
+    }
+
+    @Override
+    public int getBoxId(int i) {
+        return room().getBoxes().get(i).getId();
+    }
+
+    @Override
+    public boolean isBoxOpen(int i) {
+        return room().getBoxes().get(i).isOpen();
+    }
+
+    @Override
+    public int getUnopenedBoxCount() {
+        List<Box> boxes = room().getBoxes();
+        int count = 0;
+        for (int i = 0; i < boxes.size(); i++) {
+            if (!boxes.get(i).isOpen()) count++;
+        }
+        return count;
+    }
+
+    @Override
+    public int getUnopenedBoxId(int k) {
+        List<Box> boxes = room().getBoxes();
+        for (int i = 0; i < boxes.size(); i++) {
+            if (!boxes.get(i).isOpen() && k-- == 0) {
+                return boxes.get(i).getId();
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public List<Item> getInventory() {
+        return game.getPlayer().getInventory();
+    }
+
+    @Override
+    public int countItems(Class<? extends Item> type) {
+        return game.getPlayer().countItemOfType(type);
+    }
+
+    @Override
+    public Item getFirstItem(Class<? extends Item> type) {
+        return game.getPlayer().getFirstItemOfType(type);
+    }
+
+    @Override
+    public boolean isSomethingNearby() {
+        return game.getHunters().isHunterIn(room());
+    }
+}
@@ -0,0 +1,58 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A baseline bot that wins as soon as it can, otherwise empties every box of the room it
+ * stands in and then walks to the neighbouring room it has visited least (ties broken at random).
+ * It keeps per-room visit counts, so each game needs its own instance.
+ */
+public class GreedyExplorerStrategy implements PlayerStrategy {
+    private SplittableRandom random;
+    private int[] visits = new int[0];
+
+    /**
+     * Constructs a greedy explorer.
+     * @param random The generator for breaking ties.
+     */
+    public GreedyExplorerStrategy(SplittableRandom random) {
+        this.random = random;
+    }
+
+    @Override
+    public PlayerAction nextAction(PlayerView view) {
+        PlayerAction win = PlayerStrategy.winningAction(view);
+        if (win != null) return win;
+
+        if (view.getUnopenedBoxCount() > 0) {
+            return PlayerAction.openBox(view.getUnopenedBoxId(0));
+        }
+        return leastVisitedExit(view);
+    }
+
+    /**
+     * Counts a visit to the current room and picks the exit leading to the least visited neighbour.
+     * @param view The player's view of the game.
+     * @return The move, or null if the room has no exits.
+     */
+    protected PlayerAction leastVisitedExit(PlayerView view) {
+        if (visits.length < view.getRoomCount()) {
+            visits = Arrays.copyOf(visits, view.getRoomCount());
+        }
+        visits[view.getRoomIndex()]++;
+
+        Direction best = null;
+        int bestVisits = Integer.MAX_VALUE;
+        int ties = 0;
+        for (int i = 0; i < view.getExitCount(); i++) {
+            int v = visits[view.getExitRoomIndex(i)];
+            if (v < bestVisits) {
+                best = view.getExit(i);
+                bestVisits = v;
+                ties = 1;
+            } else if (v == bestVisits && random.nextInt(++ties) == 0) {
+                best = view.getExit(i);
+            }
+        }
+        return best == null ? null : PlayerAction.move(best);
+    }
+}
@@ -0,0 +1,192 @@
+import java.util.Arrays;
+
+/**
+ * The Box Girls (hunters) of a game and the schedule of their passive turns.
+ *
+ * Hunters are numbered in the order they are created: 0 is the first Box Girl, 1 her sister,
+ * and stress scenarios may add hundreds more. Each hunter acts every period turns (1 by default),
+ * so the scheduler is a timing wheel: a hunter due at tick t waits in bucket t mod WHEEL_SIZE,
+ * and a tick only visits the hunters in its bucket. A hunter whose due tick is more than one lap
+ * away simply stays in the bucket until her tick comes round.
+ * The per-turn cost therefore grows with the hunters due to act, not with all hunters.
+ *
+ * The registry also counts the hunters per room, so "is a hunter in this room" takes O(1).
+ */
+public class HunterRegistry {
+    private static final int WHEEL_SIZE = 64; // a power of two
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private BoxGirl[] hunters = new BoxGirl[4];
+    private int[] dueTick = new int[4];
+    private int count = 0;
+    private int[][] wheel = new int[WHEEL_SIZE][2];
+    private int[] wheelSizes = new int[WHEEL_SIZE];
+    private int lastTick = 0;
+    private int[] roomCounts = new int[32];
+
+    /**
+     * Adds a hunter and schedules her first passive turn for the next tick.
+     * Called by the BoxGirl constructor.
+     * @param hunter The new hunter, already placed in her start room.
+     * @return Her number.
+     */
+    int register(BoxGirl hunter) {
+        if (count == hunters.length) {
+            hunters = Arrays.copyOf(hunters, count * 2);
+            dueTick = Arrays.copyOf(dueTick, count * 2);
+        }
+        hunters[count] = hunter;
+        enter(hunter.getCurrentRoom());
+        schedule(count, lastTick + 1);
+        return count++;
+    }
+
+    /**
+     * @return The number of hunters.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @param number A hunter's number.
+     * @return The hunter.
+     */
+    public BoxGirl get(int number) {
+        return hunters[number];
+    }
+
+    /**
+     * @param number A hunter's number.
+     * @return The tick of her next passive turn.
+     */
+    int getDueTick(int number) {
+        return dueTick[number];
+    }
+
+    /**
+     * @return The number of buckets of the timing wheel.
+     */
+    static int getWheelSize() {
+        return WHEEL_SIZE;
+    }
+
+    /**
+     * Lets PackedGame copy the schedule in the exact order hunters wait in, which decides the
+     * order of hunters due at the same tick.
+     * @param bucket A bucket, from 0 to getWheelSize() - 1.
+     * @return The numbers of the hunters waiting in the bucket, in the order they will be visited.
+     */
+    int[] getBucket(int bucket) {
+        return Arrays.copyOf(wheel[bucket], wheelSizes[bucket]);
+    }
+
+    /**
+     * @param room A room.
+     * @return True if at least one hunter is in the room.
+     */
+    public boolean isHunterIn(Room room) {
+        int index = room.getIndex();
+        return index < roomCounts.length && roomCounts[index] > 0;
+    }
+
+    /**
+     * Runs the passive triggers of every hunter due at the given tick, in the order they became
+     * due (hunters due at the same tick from the start act in number order), and schedules each
+     * one's next turn.
+     * @param tick The tick to run: the turn count after the player's turn.
+     * @param player The player instance.
+     * @param game The main game instance.
+     */
+    public void tick(int tick, Player player, Game game) {
+        lastTick = tick;
+        int bucket = tick & WHEEL_MASK;
+        int[] entries = wheel[bucket];
+        int size = wheelSizes[bucket];
+        // Survivors are written back to the front of the same bucket; each entry read adds at most
+        // one entry here, so the write position never overtakes the read position.
+        wheelSizes[bucket] = 0;
+        boolean timed = game.isTimingTurn();
+        for (int i = 0; i < size; i++) {
+            int number = entries[i];
+            if (dueTick[number] != tick) {
+                add(bucket, number);
+                continue;
+            }
+            BoxGirl hunter = hunters[number];
+            if (timed) {
+                long start = System.nanoTime();
+                hunter.checkPassiveTriggers(player, game);
+                game.getMetrics().recordPassiveTriggers(Math.min(number, 1), System.nanoTime() - start);
+            } else {
+                hunter.checkPassiveTriggers(player, game);
+            }
+            schedule(number, tick + hunter.getPeriod());
+        }
+    }
+
+    /**
+     * Drops the hunters numbered count and above (used when rolling a game back to a state with fewer).
+     * Their wheel entries are only cleared by the reset that must follow.
+     * @param count The number of hunters to keep.
+     */
+    void truncate(int count) {
+        for (int i = count; i < this.count; i++) {
+            leave(hunters[i].getCurrentRoom());
+            hunters[i] = null;
+        }
+        this.count = Math.min(count, this.count);
+    }
+
+    /**
+     * Rebuilds the schedule after the game was restored: every hunter acts at the next tick.
+     * @param turnCount The restored turn count.
+     */
+    void reset(int turnCount) {
+        Arrays.fill(wheelSizes, 0);
+        lastTick = turnCount;
+        for (int i = 0; i < count; i++) {
+            schedule(i, turnCount + 1);
+        }
+    }
+
+    /**
+     * Updates the room counts after a hunter moved. Called by BoxGirl.
+     * @param from The room she left.
+     * @param to The room she entered.
+     */
+    void moved(Room from, Room to) {
+        leave(from);
+        enter(to);
+    }
+
+    private void enter(Room room) {
+        int index = room.getIndex();
+        if (index < 0) return;
+        if (index >= roomCounts.length) {
+            roomCounts = Arrays.copyOf(roomCounts, Math.max(index + 1, roomCounts.length * 2));
+        }
+        roomCounts[index]++;
+    }
+
+    private void leave(Room room) {
+        int index = room.getIndex();
+        if (index >= 0) {
+            roomCounts[index]--;
+        }
+    }
+
+    private void schedule(int number, int tick) {
+        dueTick[number] = tick;
+        add(tick & WHEEL_MASK, number);
+    }
+
+    private void add(int bucket, int number) {
+        int size = wheelSizes[bucket];
+        if (size == wheel[bucket].length) {
+            wheel[bucket] = Arrays.copyOf(wheel[bucket], size * 2);
+        }
+        wheel[bucket][size] = number;
+        wheelSizes[bucket] = size + 1;
+    }
+}
@@ -1,10 +1,11 @@
 /**
  * Abstract base class for all items in the game.
+ * Items are immutable definitions shared by every game (see ItemCatalogue); whether the player
+ * holds one is recorded in the Player.
  */
 public abstract class Item {
-    private String name;
-    private String description;
-    private boolean isObtained = false;
+    private final String name;
+    private final String description;
 
     /**
      * Constructs a new Item.
@@ -37,19 +38,4 @@ public abstract class Item {
     public String getDescription() {
         return description;
     }
-
-    /**
-     * @return True if the item is currently in the player's inventory.
-     */
-    public boolean isObtained() {
-        return isObtained;
-    }
-
-    /**
-     * Sets the obtained status of the item.
-     * @param obtained The new status.
-     */
-    public void setObtained(boolean obtained) {
-        this.isObtained = obtained;
-    }
 }
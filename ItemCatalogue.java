@@ -0,0 +1,263 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The items hidden in the mansion, numbered so that boxes and inventories can hold them as ints:
+ * item IDs run from 1 to size(), and 0 means "no item". Next to each item it keeps what the
+ * engines need to know about it, its kind and its skill, as bytes, so rules compare ints
+ * instead of names.
+ *
+ * Items carry no per-game state, so a catalogue is shared: of(config) builds the catalogue for
+ * a set of item counts once per JVM, from the definitions in the game content (see GameContent),
+ * and hands the same one to every game with those counts.
+ */
+public final class ItemCatalogue {
+    /** The catalogues built so far, by their item counts. */
+    private static final Map<List<Integer>, ItemCatalogue> CATALOGUES = new ConcurrentHashMap<>();
+
+    static final byte OTHER = 0;
+    static final byte PASSWORD = 1;
+    static final byte WEAKNESS = 2;
+    static final byte COUNTER = 3;
+    static final byte MANUSCRIPT = 4;
+    /** The "Empty Box" markers. */
+    static final byte EMPTY = 5;
+    /** The number of kinds, for tables indexed by kind. */
+    static final int KINDS = 6;
+
+    private final Item[] items;
+    private final byte[] kinds;
+    private final Skill[] skills;
+    private final int[] nameSlots;
+    private final int[] nameHashes;
+    private final Map<String, Integer> slotsByName;
+    private final List<Item> itemList;
+    private final Map<Item, Integer> ids;
+
+    private ItemCatalogue(List<Item> list) {
+        int size = list.size();
+        this.items = new Item[size + 1];
+        this.kinds = new byte[size + 1];
+        this.skills = new Skill[size + 1];
+        this.nameSlots = new int[size + 1];
+        this.nameHashes = new int[size + 1];
+        this.slotsByName = new HashMap<>();
+        this.ids = new IdentityHashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            Item item = list.get(i);
+            int id = i + 1;
+            items[id] = item;
+            kinds[id] = kindOf(item);
+            skills[id] = item instanceof Manuscript ? ((Manuscript) item).getSkill() : null;
+            nameSlots[id] = slotsByName.computeIfAbsent(foldName(item.getName()), k -> slotsByName.size());
+            nameHashes[id] = foldName(item.getName()).hashCode();
+            ids.put(item, id);
+        }
+        this.itemList = Collections.unmodifiableList(Arrays.asList(items).subList(1, size + 1));
+    }
+
+    /**
+     * Returns the shared catalogue of the items hidden in a game with the given config.
+     * @param config The balance parameters; only the item counts matter.
+     * @return The catalogue, built on first use.
+     */
+    public static ItemCatalogue of(GameConfig config) {
+        List<Integer> counts = Arrays.asList(config.getPasswords(), config.getWeaknesses(),
+                config.getCounterItems(), config.getManuscripts(), config.getEmptyBoxes());
+        return CATALOGUES.computeIfAbsent(counts, k -> new ItemCatalogue(createAllItems(config, GameContent.get())));
+    }
+
+    /**
+     * Numbers a list of items in list order, e.g. for tests with hand-made items.
+     * @param items The items.
+     * @return A new catalogue.
+     */
+    public static ItemCatalogue of(List<Item> items) {
+        return new ItemCatalogue(items);
+    }
+
+    /**
+     * Creates the items hidden in the mansion, as many of each kind as the config asks for.
+     * Beyond the last definition of a kind the definitions repeat with a numbered name (e.g. "Gasoline-2").
+     * @param config The balance parameters.
+     * @param content The item definitions.
+     * @return A new list containing every item, including the "Empty Box" markers.
+     */
+    private static List<Item> createAllItems(GameConfig config, GameContent content) {
+        List<Item> allItems = new ArrayList<>();
+
+        // Passwords: Password-A to Password-Z, then numbered
+        GameContent.Definition password = content.getPassword();
+        for (int i = 0; i < config.getPasswords(); i++) {
+            String name = password.getName() + "-" + (i < 26 ? String.valueOf((char) ('A' + i)) : String.valueOf(i + 1));
+            allItems.add(new Password(name, password.getDescription()));
+        }
+
+        // Box Girl Weaknesses
+        List<GameContent.Definition> weaknesses = content.getWeaknesses();
+        for (int i = 0; i < config.getWeaknesses(); i++) {
+            GameContent.Definition def = weaknesses.get(i % weaknesses.size());
+            allItems.add(new BoxGirlWeakness(copyName(def.getName(), i, weaknesses.size()), def.getDescription()));
+        }
+
+        // Counter Items
+        List<GameContent.Definition> counterItems = content.getCounterItems();
+        for (int i = 0; i < config.getCounterItems(); i++) {
+            GameContent.Definition def = counterItems.get(i % counterItems.size());
+            allItems.add(new CounterItem(copyName(def.getName(), i, counterItems.size()), def.getDescription()));
+        }
+
+        // Manuscripts
+        List<GameContent.Definition> manuscripts = content.getManuscripts();
+        for (int i = 0; i < config.getManuscripts(); i++) {
+            GameContent.Definition def = manuscripts.get(i % manuscripts.size());
+            allItems.add(new Manuscript(copyName(def.getName(), i, manuscripts.size()), def.getDescription(), def.getSkill()));
+        }
+
+        // Empty Box Markers
+        GameContent.Definition emptyBox = content.getEmptyBox();
+        for (int i = 0; i < config.getEmptyBoxes(); i++) {
+            allItems.add(new EmptyBox(emptyBox.getName(), emptyBox.getDescription()));
+        }
+
+        return allItems;
+    }
+
+    /**
+     * @return The name of the i-th copy of an item definition: the plain name for the first round
+     *         of definitions, then the name with the round number appended.
+     */
+    private static String copyName(String name, int i, int definitions) {
+        return i < definitions ? name : name + "-" + (i / definitions + 1);
+    }
+
+    /**
+     * Hand-made "Empty Box" items (see of(List)) are recognised by their name.
+     */
+    private static byte kindOf(Item item) {
+        if (item instanceof EmptyBox) return EMPTY;
+        byte kind = kindOf(item.getClass());
+        return kind == OTHER && item.getName().equals("Empty Box") ? EMPTY : kind;
+    }
+
+    /**
+     * Kinds follow the exact class, like Player.countItemOfType.
+     * @param type An item class.
+     * @return The kind of items of exactly that class, or OTHER.
+     */
+    static byte kindOf(Class<? extends Item> type) {
+        if (type == Password.class) return PASSWORD;
+        if (type == BoxGirlWeakness.class) return WEAKNESS;
+        if (type == CounterItem.class) return COUNTER;
+        if (type == Manuscript.class) return MANUSCRIPT;
+        return OTHER;
+    }
+
+    /**
+     * @return The number of items.
+     */
+    public int size() {
+        return items.length - 1;
+    }
+
+    /**
+     * @param id An item ID, from 0 to size().
+     * @return The item, or null for 0.
+     */
+    public Item get(int id) {
+        return items[id];
+    }
+
+    /**
+     * @return Every item in ID order (item ID i is at position i - 1). Must not be modified.
+     */
+    public List<Item> getItems() {
+        return itemList;
+    }
+
+    /**
+     * @param item An item.
+     * @return Its ID, or 0 if it is null or not in this catalogue.
+     */
+    public int idOf(Item item) {
+        Integer id = item == null ? null : ids.get(item);
+        return id == null ? 0 : id;
+    }
+
+    /**
+     * @param id An item ID, or 0.
+     * @return Its kind: PASSWORD, WEAKNESS, COUNTER, MANUSCRIPT, EMPTY or OTHER (also for 0).
+     */
+    byte kind(int id) {
+        return kinds[id];
+    }
+
+    /**
+     * @param id An item ID, or 0.
+     * @return The skill a manuscript unlocks, or null.
+     */
+    Skill skill(int id) {
+        return skills[id];
+    }
+
+    /**
+     * Items whose names differ only in case (e.g. the two "Manuscript-Beside" copies, or a
+     * name typed in lower case) share a name slot, so tables indexed by slot look them up by
+     * name without hashing strings.
+     * @param id An item ID, from 1 to size().
+     * @return The item's name slot, from 0 to getNameSlotCount() - 1.
+     */
+    int nameSlot(int id) {
+        return nameSlots[id];
+    }
+
+    /**
+     * @param id An item ID, from 1 to size().
+     * @return The hash of the item's case-folded name, equal for the items of a name slot and
+     *         the same in every catalogue.
+     */
+    int nameHash(int id) {
+        return nameHashes[id];
+    }
+
+    /**
+     * @param name An item name, in any case.
+     * @return The name slot of the items with that name, or -1 if no item has it.
+     */
+    int nameSlot(String name) {
+        Integer slot = slotsByName.get(foldName(name));
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * @return The number of distinct item names, ignoring case.
+     */
+    int getNameSlotCount() {
+        return slotsByName.size();
+    }
+
+    private static String foldName(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The marker hidden in the boxes that are left empty.
+     */
+    private static final class EmptyBox extends Item {
+        EmptyBox(String name, String description) {
+            super(name, description);
+        }
+
+        @Override
+        public String use(Player player, Game game) {
+            return "This box is empty.";
+        }
+    }
+}
@@ -0,0 +1,277 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Rebuilds games from a turn journal written by JournalWriter. The recorded commands are
+ * fed back as the game's command source, and every random outcome the replayed game
+ * produces is checked against the recording, so a replay either reproduces the session
+ * exactly or fails with the turn where it diverged. Games driven by a PlayerStrategy are
+ * replayed from their recorded actions; items in those actions are looked up by name.
+ * Usage: java JournalReplayer file...                            (replay every game)
+ *        java JournalReplayer record file [games] [seed] [hunt]  (record bot games)
+ */
+public class JournalReplayer implements TurnJournal, CommandSource, PlayerStrategy {
+    private ByteBuffer records;
+    private Game game;
+    private int truncatedGames;
+
+    /**
+     * Constructs a replayer over journal records.
+     * @param records The journal contents, positioned at the first record.
+     */
+    public JournalReplayer(ByteBuffer records) {
+        this.records = records;
+    }
+
+    /**
+     * Maps a journal file into memory for replay.
+     * @param file The journal file (at most 2 GB).
+     * @return A replayer positioned at the first record of the file.
+     * @throws IllegalArgumentException If the file is not a journal of a supported version.
+     */
+    public static JournalReplayer open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            JournalWriter.readHeader(records);
+            return new JournalReplayer(records);
+        }
+    }
+
+    /**
+     * Replays all journal files given on the command line, or records bot games into one.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("record")) {
+            int games = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+            long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+            boolean hunting = args.length > 4 && args[4].equalsIgnoreCase("hunt");
+            record(Paths.get(args[1]), games, seed, hunting);
+            return;
+        }
+        for (String file : args) {
+            JournalReplayer replayer = open(Paths.get(file));
+            long games = 0;
+            long turns = 0;
+            long start = System.nanoTime();
+            while (replayer.hasNextGame()) {
+                turns += replayer.replayNext().getTurnCount();
+                games++;
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%s: %d games (%d truncated), %d turns in %.2f s, %.0f turns/s%n",
+                    file, games, replayer.getTruncatedGames(), turns, seconds, turns / seconds);
+        }
+    }
+
+    /**
+     * Plays bot games and appends their journals to a file, e.g. to produce replay input.
+     * @param file The journal file.
+     * @param games The number of games to play.
+     * @param seed The seed the per-game seeds are drawn from.
+     * @param hunting True if the Box Girls hunt the player.
+     */
+    public static void record(Path file, int games, long seed, boolean hunting) throws IOException {
+        SplittableRandom root = new SplittableRandom(seed);
+        try (JournalWriter journal = new JournalWriter(file, false)) {
+            for (int i = 0; i < games; i++) {
+                Game game = new Game(new ScriptedPlayer(root.split()), Simulation.SILENT, root.nextLong());
+                game.setQuiet(true);
+                game.setHuntingMode(hunting);
+                game.setJournal(journal);
+                game.simulate(500);
+            }
+        }
+    }
+
+    /**
+     * Skips to the next recorded game.
+     * @return True if there is another game to replay.
+     */
+    public boolean hasNextGame() {
+        while (records.remaining() >= 5 && peekType() != JournalWriter.START) {
+            skipRecord();
+        }
+        return records.remaining() >= 5;
+    }
+
+    /**
+     * Replays the next recorded game up to the point where its recording ends.
+     * @return The replayed game.
+     * @throws IllegalStateException If the replay does not reproduce the recorded outcomes.
+     */
+    public Game replayNext() {
+        if (!hasNextGame()) {
+            throw new NoSuchElementException("No more games in the journal");
+        }
+        int length = records.getInt();
+        int next = records.position() + length;
+        records.get();
+        long seed = records.getLong();
+        boolean hunting = records.get() != 0;
+        GameConfig config = GameConfig.readFrom(records);
+        records.position(next);
+
+        game = new Game(this, Simulation.SILENT, seed);
+        game.setQuiet(true);
+        game.setHuntingMode(hunting);
+        game.setConfig(config);
+        game.setJournal(this);
+        game.simulate(0);
+        if (records.remaining() >= 5 && peekType() == JournalWriter.ACTION) {
+            game.setStrategy(this);
+        }
+        try {
+            while (records.remaining() >= 5 && peekType() != JournalWriter.END && peekType() != JournalWriter.START) {
+                game.playTurn();
+            }
+        } catch (NoSuchElementException e) {
+            // The session stopped in the middle of a turn (e.g. the client disconnected).
+            truncatedGames++;
+            return game;
+        }
+        if (records.remaining() < 5 || peekType() != JournalWriter.END) {
+            truncatedGames++;
+            return game;
+        }
+        records.getInt();
+        records.get();
+        int flags = records.get();
+        int turnCount = records.getInt();
+        if (game.isGameOver() != ((flags & 1) != 0) || game.isWin() != ((flags & 2) != 0)
+                || game.getTurnCount() != turnCount) {
+            throw diverged("the game ended differently");
+        }
+        return game;
+    }
+
+    /**
+     * @return The number of replayed games whose recording stopped before the game loop ended.
+     */
+    public int getTruncatedGames() {
+        return truncatedGames;
+    }
+
+    /**
+     * Returns the next recorded command.
+     * @throws NoSuchElementException If the recording of this game ends here.
+     */
+    @Override
+    public String nextLine(Game game) {
+        if (records.remaining() < 5 || peekType() == JournalWriter.START || peekType() == JournalWriter.END) {
+            throw new NoSuchElementException("The recording ends here");
+        }
+        if (peekType() != JournalWriter.COMMAND) {
+            throw diverged("the game asked for a command");
+        }
+        int length = records.getInt() - 1;
+        records.get();
+        byte[] bytes = new byte[length];
+        records.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the next recorded strategy action.
+     * @throws NoSuchElementException If the recording of this game ends here.
+     */
+    @Override
+    public PlayerAction nextAction(PlayerView view) {
+        if (records.remaining() < 5 || peekType() == JournalWriter.START || peekType() == JournalWriter.END) {
+            throw new NoSuchElementException("The recording ends here");
+        }
+        int next = expect(JournalWriter.ACTION);
+        int kind = records.get();
+        int direction = records.get();
+        int boxId = records.getInt();
+        byte[] bytes = new byte[next - records.position()];
+        records.get(bytes);
+        Item item = bytes.length == 0 ? null : game.getPlayer().getItemByName(new String(bytes, StandardCharsets.UTF_8));
+        if (kind < 0) return null;
+
+        switch (PlayerAction.Kind.values()[kind]) {
+            case MOVE: return PlayerAction.move(Direction.values()[direction]);
+            case OPEN_BOX: return PlayerAction.openBox(boxId);
+            case USE_ITEM: return PlayerAction.useItem(item);
+            default: return PlayerAction.putItem(boxId, item);
+        }
+    }
+
+    @Override
+    public void recordAction(PlayerAction action) {
+        // Actions come from the journal itself.
+    }
+
+    @Override
+    public void recordStart(long seed, boolean huntingMode, GameConfig config) {
+        // Already read by replayNext.
+    }
+
+    @Override
+    public void recordCommand(String line) {
+        // Commands come from the journal itself.
+    }
+
+    @Override
+    public void recordSkill(int girl, String skillName) {
+        int next = expect(JournalWriter.SKILL);
+        int recordedGirl = records.getInt();
+        byte[] bytes = new byte[next - records.position()];
+        records.get(bytes);
+        if (recordedGirl != girl || !skillName.equals(new String(bytes, StandardCharsets.UTF_8))) {
+            throw diverged("Box Girl " + girl + " activated " + skillName);
+        }
+    }
+
+    @Override
+    public void recordMove(int girl, int roomIndex, int boxId) {
+        expect(JournalWriter.MOVE);
+        if (records.getInt() != girl || records.getInt() != roomIndex || records.getInt() != boxId) {
+            throw diverged("Box Girl " + girl + " moved to room " + roomIndex + ", box " + boxId);
+        }
+    }
+
+    @Override
+    public void recordTurnEnd(int turnCount) {
+        // Turns are not recorded; the replayer plays them one at a time itself.
+    }
+
+    @Override
+    public void recordEnd(boolean isGameOver, boolean isWin, int turnCount) {
+        // Checked by replayNext against the recorded end.
+    }
+
+    /**
+     * Reads the header of the next record, which must have the given type.
+     * @return The position after the record.
+     */
+    private int expect(byte type) {
+        if (records.remaining() < 5 || peekType() != type) {
+            throw diverged("expected record type " + type);
+        }
+        int length = records.getInt();
+        int next = records.position() + length;
+        records.get();
+        return next;
+    }
+
+    private byte peekType() {
+        return records.get(records.position() + 4);
+    }
+
+    private void skipRecord() {
+        int length = records.getInt();
+        records.position(records.position() + length);
+    }
+
+    private IllegalStateException diverged(String what) {
+        return new IllegalStateException("Replay of game " + game.getSeed() + " diverged at turn "
+                + game.getTurnCount() + ": " + what);
+    }
+}
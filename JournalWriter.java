@@ -0,0 +1,199 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends a game's turn journal to a file. The file starts with a header (the magic number
+ * "BXGJ" and a short format version); every record after it is an int length followed by a
+ * type byte and its payload, so a reader can skip records it does not understand.
+ * Version 2 stores the balance config in START records and adds ACTION records; version 3
+ * stores the Box Girl's number in SKILL and MOVE records as an int, for any number of
+ * hunters. Older journals, including those from before the header (version 1), are rejected
+ * rather than misread.
+ * Records are collected in a direct buffer and written at the end of every turn, so a killed
+ * or crashed process loses at most the turn in progress. Writers that do not need that (e.g.
+ * recording bot games) can write only when the buffer fills up, when a game ends and when
+ * the journal is closed. Several games may be appended to the same file.
+ */
+public class JournalWriter implements TurnJournal, AutoCloseable {
+    static final byte START = 1;
+    static final byte COMMAND = 2;
+    static final byte SKILL = 3;
+    static final byte MOVE = 4;
+    static final byte END = 5;
+    static final byte ACTION = 6;
+
+    static final int MAGIC = 0x4258474A; // "BXGJ"
+    static final short VERSION = 3;
+    static final int HEADER_BYTES = 6;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private boolean flushEveryTurn;
+
+    /**
+     * Opens a journal file for appending, creating it if needed. Records are written at the
+     * end of every turn.
+     * @param file The journal file.
+     */
+    public JournalWriter(Path file) throws IOException {
+        this(file, true);
+    }
+
+    /**
+     * Opens a journal file for appending, creating it if needed.
+     * @param file The journal file.
+     * @param flushEveryTurn True to write the records at the end of every turn, false to write
+     *                       them only when the buffer fills up and when a game ends.
+     * @throws IllegalArgumentException If the file exists but is not a journal of this version.
+     */
+    public JournalWriter(Path file, boolean flushEveryTurn) throws IOException {
+        if (Files.exists(file) && Files.size(file) > 0) {
+            try (FileChannel existing = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                while (header.hasRemaining() && existing.read(header) >= 0) {
+                    // Read until the header is complete or the file ends.
+                }
+                readHeader(header.flip());
+            }
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.flushEveryTurn = flushEveryTurn;
+        if (channel.size() == 0) {
+            write(ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putShort(VERSION).flip());
+        }
+    }
+
+    /**
+     * Reads and checks a journal header.
+     * @param buf A buffer positioned at the start of a journal; it is left after the header.
+     * @throws IllegalArgumentException If the buffer does not start with a header of this version.
+     */
+    static void readHeader(ByteBuffer buf) {
+        if (buf.remaining() < HEADER_BYTES || buf.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a turn journal, or one written before journals had a version.");
+        }
+        short version = buf.getShort();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported turn journal version: " + version
+                    + " (this build reads version " + VERSION + ")");
+        }
+    }
+
+    @Override
+    public void recordStart(long seed, boolean huntingMode, GameConfig config) {
+        begin(START, 9 + GameConfig.BYTES);
+        buffer.putLong(seed);
+        buffer.put((byte) (huntingMode ? 1 : 0));
+        config.writeTo(buffer);
+    }
+
+    @Override
+    public void recordCommand(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        if (5 + bytes.length > BUFFER_SIZE) {
+            // Too long for the buffer (only a misbehaving client sends this): write it directly.
+            flush();
+            ByteBuffer record = ByteBuffer.allocate(5 + bytes.length);
+            record.putInt(1 + bytes.length).put(COMMAND).put(bytes).flip();
+            write(record);
+            return;
+        }
+        begin(COMMAND, bytes.length);
+        buffer.put(bytes);
+    }
+
+    @Override
+    public void recordAction(PlayerAction action) {
+        byte[] item = action == null || action.getItem() == null ? new byte[0]
+                : action.getItem().getName().getBytes(StandardCharsets.UTF_8);
+        begin(ACTION, 6 + item.length);
+        buffer.put((byte) (action == null ? -1 : action.getKind().ordinal()));
+        buffer.put((byte) (action == null || action.getDirection() == null ? -1 : action.getDirection().ordinal()));
+        buffer.putInt(action == null ? 0 : action.getBoxId());
+        buffer.put(item);
+    }
+
+    @Override
+    public void recordSkill(int girl, String skillName) {
+        byte[] bytes = skillName.getBytes(StandardCharsets.UTF_8);
+        begin(SKILL, 4 + bytes.length);
+        buffer.putInt(girl);
+        buffer.put(bytes);
+    }
+
+    @Override
+    public void recordMove(int girl, int roomIndex, int boxId) {
+        begin(MOVE, 12);
+        buffer.putInt(girl);
+        buffer.putInt(roomIndex);
+        buffer.putInt(boxId);
+    }
+
+    @Override
+    public void recordTurnEnd(int turnCount) {
+        if (flushEveryTurn) {
+            flush();
+        }
+    }
+
+    @Override
+    public void recordEnd(boolean isGameOver, boolean isWin, int turnCount) {
+        begin(END, 5);
+        buffer.put((byte) ((isGameOver ? 1 : 0) | (isWin ? 2 : 0)));
+        buffer.putInt(turnCount);
+        flush();
+    }
+
+    /**
+     * Writes the record header, first making room for the whole record.
+     * @param type The record type.
+     * @param payloadLength The number of payload bytes that follow.
+     */
+    private void begin(byte type, int payloadLength) {
+        if (buffer.remaining() < 5 + payloadLength) {
+            flush();
+        }
+        buffer.putInt(1 + payloadLength);
+        buffer.put(type);
+    }
+
+    /**
+     * Writes all buffered records to the file.
+     */
+    public void flush() {
+        buffer.flip();
+        write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Writes a buffer completely to the file.
+     */
+    private void write(ByteBuffer data) {
+        try {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flushes the buffered records and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with power-of-two buckets: bucket i counts durations
+ * below 2^i nanoseconds. Every bucket is a LongAdder, so many threads can record at once
+ * without contending on a shared counter. Percentiles are reported as bucket upper bounds.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 64;
+
+    private LongAdder[] buckets = new LongAdder[BUCKETS];
+    private LongAdder totalNanos = new LongAdder();
+
+    /**
+     * Constructs an empty histogram.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one duration.
+     * @param nanos The duration in nanoseconds (negative values count as 0).
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos))].increment();
+        totalNanos.add(nanos);
+    }
+
+    /**
+     * Clears all recorded durations. Durations recorded concurrently may survive the reset.
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        totalNanos.reset();
+    }
+
+    /**
+     * @return The number of recorded durations.
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @return The mean duration in nanoseconds, or 0 if nothing was recorded.
+     */
+    public double getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) totalNanos.sum() / count;
+    }
+
+    /**
+     * Returns an upper bound of the given percentile.
+     * @param percentile The percentile, between 0 and 100.
+     * @return The upper bound in nanoseconds of the bucket holding that percentile, or 0 if empty.
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        if (count == 0) return 0;
+
+        long rank = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return i == 0 ? 0 : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * @return A one-line summary: count, mean, p50, p99 and p99.9.
+     */
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.0fns p50<=%dns p99<=%dns p99.9<=%dns", getCount(), getMeanNanos(),
+                getPercentileNanos(50), getPercentileNanos(99), getPercentileNanos(99.9));
+    }
+}
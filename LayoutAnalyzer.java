@@ -0,0 +1,187 @@
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+/**
+ * Checks that a generated layout (a map with its items distributed) can be won both ways before
+ * anyone plays it. The classic generator can lose a room when a hall has no free cell left, and
+ * with it a feature or the boxes that held items, and the Box Girls start in hard-coded boxes.
+ *
+ * A layout passes when the rooms the game starts in exist with the boxes it uses, and from the
+ * First Floor Hall the player can reach
+ * - the hidden exit, and Password.REQUIRED passwords in boxes, and
+ * - an exorcism room (the corpse or Miss Mary), and BoxGirlWeakness.REQUIRED weaknesses in boxes.
+ * analyze returns the failed checks as bits, so a batch can report why layouts fail.
+ * Usage: java LayoutAnalyzer [layouts] [threads] [seed]
+ */
+public final class LayoutAnalyzer {
+    /** The First Floor Hall, Second Floor Hall or Basement is missing or lacks a start box. */
+    public static final int NO_START_ROOMS = 1;
+    /** No room has the hidden exit. */
+    public static final int NO_EXIT = 1 << 1;
+    /** The hidden exit cannot be reached from the player's start room. */
+    public static final int EXIT_UNREACHABLE = 1 << 2;
+    /** Too few passwords lie in reachable boxes. */
+    public static final int TOO_FEW_PASSWORDS = 1 << 3;
+    /** No room allows the exorcism. */
+    public static final int NO_EXORCISM_ROOM = 1 << 4;
+    /** No exorcism room can be reached from the player's start room. */
+    public static final int EXORCISM_UNREACHABLE = 1 << 5;
+    /** Too few weaknesses lie in reachable boxes. */
+    public static final int TOO_FEW_WEAKNESSES = 1 << 6;
+    /** The number of problem bits. */
+    public static final int PROBLEMS = 7;
+
+    private static final String[] PROBLEM_NAMES = {
+        "start rooms missing", "no hidden exit", "hidden exit unreachable", "too few passwords",
+        "no exorcism room", "exorcism room unreachable", "too few weaknesses",
+    };
+
+    private LayoutAnalyzer() {
+    }
+
+    /**
+     * Analyzes the layouts of a batch of seeds from the command line and reports how many pass,
+     * why the others fail, and the throughput.
+     */
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        long layouts = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+
+        long startTime = System.nanoTime();
+        LayoutStats stats = run(layouts, threads, seed, new GameConfig());
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        System.out.println(stats);
+        System.out.printf("Threads: %d, time: %.2f s, %.0f layouts/s%n", threads, seconds, stats.getLayouts() / seconds);
+    }
+
+    /**
+     * Generates and analyzes the layouts of a batch of seeds in parallel.
+     * @param layouts The number of layouts.
+     * @param threads The number of worker threads.
+     * @param seed The base seed; layout i is the one new Game(seed + i) would play.
+     * @param config The balance parameters; only the item counts matter.
+     * @return The merged results.
+     */
+    public static LayoutStats run(long layouts, int threads, long seed, GameConfig config)
+            throws InterruptedException, ExecutionException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> LongStream.range(0, layouts).parallel()
+                    .map(i -> analyze(seed + i, config))
+                    .collect(LayoutStats::new, (stats, problems) -> stats.record((int) problems), LayoutStats::merge))
+                    .get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Generates the classic layout a game with the given seed would play, and analyzes it.
+     * @param seed The game seed.
+     * @param config The balance parameters; only the item counts matter.
+     * @return The failed checks as bits, 0 if the layout passes.
+     */
+    public static int analyze(long seed, GameConfig config) {
+        GameMap map = new GameMap(Simulation.SILENT, new SplittableRandom(seed).split());
+        map.setQuiet(true);
+        map.generateRandomMap();
+        map.distributeItems(ItemCatalogue.of(config));
+        return analyze(map);
+    }
+
+    /**
+     * Draws seeds until one has a classic layout that passes.
+     * @param seeds The source of candidate seeds.
+     * @param config The balance parameters; only the item counts matter.
+     * @return The first seed whose layout passes.
+     * @throws IllegalStateException If MapPool.MAX_REJECTS seeds in a row fail, e.g. because the
+     *                               config hides fewer passwords than the exit needs.
+     */
+    public static long winnableSeed(SplittableRandom seeds, GameConfig config) {
+        for (int attempt = 0; attempt < MapPool.MAX_REJECTS; attempt++) {
+            long seed = seeds.nextLong();
+            if (analyze(seed, config) == 0) {
+                return seed;
+            }
+        }
+        throw new IllegalStateException("No winnable layout in " + MapPool.MAX_REJECTS + " seeds for " + config);
+    }
+
+    /**
+     * Analyzes a generated map whose items have been distributed.
+     * @param map The map.
+     * @return The failed checks as bits, 0 if the layout passes.
+     */
+    public static int analyze(GameMap map) {
+        int problems = 0;
+        Room start = map.getRoom("First Floor Hall");
+        Room secondHall = map.getRoom("Second Floor Hall");
+        Room basement = map.getRoom("Basement");
+        // The Box Girl starts in the Second Floor Hall's first box, her sister in the Basement's third.
+        if (start == null || secondHall == null || secondHall.getBoxes().isEmpty()
+                || basement == null || basement.getBoxes().size() < 3) {
+            problems |= NO_START_ROOMS;
+        }
+
+        List<Room> rooms = map.getRooms();
+        boolean[] reached = new boolean[rooms.size()];
+        if (start != null) {
+            Room[] queue = new Room[rooms.size()];
+            int head = 0, tail = 0;
+            queue[tail++] = start;
+            reached[start.getIndex()] = true;
+            while (head < tail) {
+                Room room = queue[head++];
+                for (int i = 0; i < room.getExitCount(); i++) {
+                    Room next = room.getAdjacentRoom(i);
+                    if (!reached[next.getIndex()]) {
+                        reached[next.getIndex()] = true;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+
+        boolean exit = false, exitReached = false, exorcism = false, exorcismReached = false;
+        int passwords = 0, weaknesses = 0;
+        ItemCatalogue catalogue = map.getCatalogue();
+        for (int r = 0; r < rooms.size(); r++) {
+            Room room = rooms.get(r);
+            Feature feature = room.getFeature();
+            if (feature != null) {
+                exit |= feature.isExit();
+                exitReached |= feature.isExit() && reached[r];
+                exorcism |= feature.allowsExorcism();
+                exorcismReached |= feature.allowsExorcism() && reached[r];
+            }
+            if (!reached[r]) continue;
+            List<Box> boxes = room.getBoxes();
+            for (int b = 0; b < boxes.size(); b++) {
+                byte kind = catalogue.kind(boxes.get(b).getContentId());
+                if (kind == ItemCatalogue.PASSWORD) passwords++;
+                if (kind == ItemCatalogue.WEAKNESS) weaknesses++;
+            }
+        }
+
+        if (!exit) problems |= NO_EXIT;
+        else if (!exitReached) problems |= EXIT_UNREACHABLE;
+        if (passwords < Password.REQUIRED) problems |= TOO_FEW_PASSWORDS;
+        if (!exorcism) problems |= NO_EXORCISM_ROOM;
+        else if (!exorcismReached) problems |= EXORCISM_UNREACHABLE;
+        if (weaknesses < BoxGirlWeakness.REQUIRED) problems |= TOO_FEW_WEAKNESSES;
+        return problems;
+    }
+
+    /**
+     * @param problem One problem bit, from 0 to PROBLEMS - 1.
+     * @return Its description, e.g. "no hidden exit".
+     */
+    public static String describe(int problem) {
+        return PROBLEM_NAMES[problem];
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Pass/fail totals for a batch of analyzed layouts (see LayoutAnalyzer). Not thread-safe: each
+ * worker fills its own instance and the instances are merged at the end.
+ */
+public class LayoutStats {
+    private long layouts;
+    private long passed;
+    private long[] problemCounts = new long[LayoutAnalyzer.PROBLEMS];
+
+    /**
+     * Records the result of one layout.
+     * @param problems The failed checks returned by LayoutAnalyzer.analyze.
+     */
+    public void record(int problems) {
+        layouts++;
+        if (problems == 0) {
+            passed++;
+            return;
+        }
+        for (int i = 0; i < problemCounts.length; i++) {
+            if ((problems & (1 << i)) != 0) {
+                problemCounts[i]++;
+            }
+        }
+    }
+
+    /**
+     * Adds the totals of another batch into this one.
+     * @param other The batch to merge.
+     */
+    public void merge(LayoutStats other) {
+        layouts += other.layouts;
+        passed += other.passed;
+        for (int i = 0; i < problemCounts.length; i++) {
+            problemCounts[i] += other.problemCounts[i];
+        }
+    }
+
+    /**
+     * @return The number of layouts recorded.
+     */
+    public long getLayouts() { return layouts; }
+
+    /**
+     * @return The number of layouts that passed every check.
+     */
+    public long getPassed() { return passed; }
+
+    /**
+     * @param problem One problem bit, from 0 to LayoutAnalyzer.PROBLEMS - 1.
+     * @return The number of layouts that failed that check.
+     */
+    public long getProblemCount(int problem) {
+        return problemCounts[problem];
+    }
+
+    /**
+     * @return A multi-line summary of the batch.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder()
+                .append("Layouts:     ").append(layouts).append('\n')
+                .append("Passed:      ").append(passed)
+                .append(String.format(" (%.3f%%)", layouts == 0 ? 0 : 100.0 * passed / layouts));
+        for (int i = 0; i < problemCounts.length; i++) {
+            if (problemCounts[i] > 0) {
+                text.append(String.format("%n  %-26s %d", LayoutAnalyzer.describe(i) + ":", problemCounts[i]));
+            }
+        }
+        return text.toString();
+    }
+}
@@ -2,17 +2,36 @@
  * Represents a manuscript item that unlocks a new skill for the Box Girl.
  */
 public class Manuscript extends Item {
-    private String skillName;
+    private final Skill skill;
 
     /**
      * Constructs a new Manuscript.
      * @param name The display name of the manuscript.
      * @param description A description of the skill it unlocks.
-     * @param skillName The identifier for the Box Girl's new skill.
+     * @param skill The Box Girl's new skill.
      */
-    public Manuscript(String name, String description, String skillName) {
+    public Manuscript(String name, String description, Skill skill) {
         super(name, description);
-        this.skillName = skillName;
+        this.skill = skill;
+    }
+
+    /**
+     * Constructs a new Manuscript from the name of its skill.
+     * @param name The display name of the manuscript.
+     * @param description A description of the skill it unlocks.
+     * @param skillName The name of the Box Girl's new skill, e.g. "Right Beside You".
+     * @throws IllegalArgumentException If there is no skill of that name.
+     */
+    public Manuscript(String name, String description, String skillName) {
+        this(name, description, requireSkill(skillName));
+    }
+
+    private static Skill requireSkill(String skillName) {
+        Skill skill = Skill.parse(skillName);
+        if (skill == null) {
+            throw new IllegalArgumentException("Unknown skill: " + skillName);
+        }
+        return skill;
     }
 
     /**
@@ -25,17 +44,27 @@ public class Manuscript extends Item {
     }
 
     /**
-     * Activates the Box Girl's skill associated with this manuscript.
+     * Activates the skill associated with this manuscript for every Box Girl in the game.
      * @param game The current game instance.
      */
     public void activateSkill(Game game) {
-        game.getBoxGirl().unlockSkill(this);
+        HunterRegistry hunters = game.getHunters();
+        for (int i = 0; i < hunters.size(); i++) {
+            hunters.get(i).unlockSkill(this);
+        }
+    }
+
+    /**
+     * @return The skill unlocked by this manuscript.
+     */
+    public Skill getSkill() {
+        return skill;
     }
 
     /**
      * @return The name of the skill unlocked by this manuscript.
      */
     public String getSkillName() {
-        return skillName;
+        return skill.getName();
     }
 }
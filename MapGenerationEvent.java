@@ -0,0 +1,20 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for GameMap.generateRandomMap and GameMap.generateLargeMap.
+ */
+@Name("boxgirl.MapGeneration")
+@Label("Map Generation")
+@Category("Box Girl")
+@Description("Generating the mansion layout")
+public class MapGenerationEvent extends Event {
+    @Label("Layout")
+    String layout;
+
+    @Label("Rooms")
+    int rooms;
+}
@@ -0,0 +1,282 @@
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * A pool of ready-to-play layouts (a generated map with its items distributed), so that starting a
+ * game does not wait for map generation. A background producer thread keeps the pool filled up to a
+ * target size; take() is a constant-time dequeue and only generates on the caller's thread when the
+ * pool has run dry (a miss).
+ *
+ * The target adapts to demand between the minimum and maximum size: a miss doubles it, and a run
+ * of TAKES_PER_SHRINK takes without a miss shrinks it by a quarter, so an idle server does not
+ * keep thousands of maps alive.
+ *
+ * Layouts that cannot be won both ways (see LayoutAnalyzer) are rejected and replaced by the
+ * layout of another seed before any game sees them.
+ *
+ * Every layout is tagged with a seed and generated exactly as new Game(seed) would generate it,
+ * so a game started on a pooled layout (Game.setLayout) plays, journals and replays the same as a
+ * game that generated its own map.
+ */
+public final class MapPool implements AutoCloseable {
+    /** Consecutive takes without a miss after which the target shrinks. */
+    static final int TAKES_PER_SHRINK = 256;
+    /** Rejected layouts in a row after which the generator is deemed unable to make a winnable one. */
+    static final int MAX_REJECTS = 1000;
+
+    /**
+     * A map generated for a seed, with its items distributed. A layout is used by a single game.
+     */
+    public static final class Layout {
+        private final long seed;
+        private final GameMap map;
+        private final String output;
+
+        private Layout(long seed, GameMap map, String output) {
+            this.seed = seed;
+            this.map = map;
+            this.output = output;
+        }
+
+        /**
+         * @return The seed the layout was generated for; the game must use the same one.
+         */
+        public long getSeed() {
+            return seed;
+        }
+
+        /**
+         * @return The map, with its items distributed.
+         */
+        public GameMap getMap() {
+            return map;
+        }
+
+        /**
+         * @return What the map printed while it was generated (e.g. the ASCII villa map), for the
+         *         game to show its player.
+         */
+        String getOutput() {
+            return output;
+        }
+    }
+
+    private final GameConfig config;
+    private final Consumer<GameMap> generator;
+    private final int minSize;
+    private final int maxSize;
+    private final GameMetrics metrics;
+    private final SplittableRandom seeds;
+    private final ConcurrentLinkedQueue<Layout> layouts = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rejects = new LongAdder();
+    private final AtomicInteger target;
+    private final AtomicInteger takesSinceMiss = new AtomicInteger();
+    private final Thread producer;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a pool of classic villas and starts its producer.
+     * @param config The balance parameters of the games; only the item counts matter here.
+     * @param minSize The smallest target size (at least 1).
+     * @param maxSize The largest target size.
+     * @param metrics The metrics to record hits, misses and depth to, or null.
+     */
+    public MapPool(GameConfig config, int minSize, int maxSize, GameMetrics metrics) {
+        this(config, GameMap::generateRandomMap, minSize, maxSize, metrics, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Constructs a pool of maps made by a generator (e.g. map -> map.generateLargeMap(10, 1000))
+     * and starts its producer.
+     * @param config The balance parameters of the games; only the item counts matter here.
+     * @param generator Generates the rooms of an empty map; it must create the Basement and both halls.
+     * @param minSize The smallest target size (at least 1).
+     * @param maxSize The largest target size.
+     * @param metrics The metrics to record hits, misses and depth to, or null.
+     */
+    public MapPool(GameConfig config, Consumer<GameMap> generator, int minSize, int maxSize, GameMetrics metrics) {
+        this(config, generator, minSize, maxSize, metrics, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Constructs a pool whose seeds come from a fixed seed (used by the benchmark for repeatable runs).
+     */
+    MapPool(GameConfig config, Consumer<GameMap> generator,
+            int minSize, int maxSize, GameMetrics metrics, long seed) {
+        if (minSize < 1 || maxSize < minSize) {
+            throw new IllegalArgumentException("Pool sizes must satisfy 1 <= min <= max: " + minSize + ", " + maxSize);
+        }
+        this.config = config;
+        this.generator = generator;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.metrics = metrics;
+        this.seeds = new SplittableRandom(seed);
+        this.target = new AtomicInteger(minSize);
+        this.producer = new Thread(this::produce, "map-pool");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    /**
+     * Takes a layout from the pool, or generates one right away if the pool is empty.
+     * @return A layout no other caller receives.
+     */
+    public Layout take() {
+        Layout layout = layouts.poll();
+        if (layout != null) {
+            int left = depth.decrementAndGet();
+            hits.increment();
+            // Racing takes may both reset the count and shrink twice; the target recovers on the next miss.
+            if (takesSinceMiss.incrementAndGet() >= TAKES_PER_SHRINK) {
+                takesSinceMiss.set(0);
+                target.updateAndGet(t -> Math.max(minSize, t - t / 4));
+            }
+            if (left < target.get()) {
+                LockSupport.unpark(producer);
+            }
+            record(true, left);
+            return layout;
+        }
+        misses.increment();
+        takesSinceMiss.set(0);
+        target.updateAndGet(t -> Math.min(maxSize, t * 2));
+        LockSupport.unpark(producer);
+        record(false, depth.get());
+        return nextLayout();
+    }
+
+    /**
+     * Generates layouts for fresh seeds until one passes LayoutAnalyzer.
+     * @return The first winnable layout.
+     * @throws IllegalStateException If MAX_REJECTS layouts in a row fail, e.g. because the config
+     *                               hides fewer passwords than the exit needs.
+     */
+    private Layout nextLayout() {
+        for (int attempt = 0; attempt < MAX_REJECTS; attempt++) {
+            Layout layout = generate(nextSeed());
+            if (LayoutAnalyzer.analyze(layout.getMap()) == 0) {
+                return layout;
+            }
+            rejects.increment();
+            if (metrics != null) {
+                metrics.recordMapPoolReject();
+            }
+        }
+        throw new IllegalStateException("No winnable layout in " + MAX_REJECTS + " attempts for " + config);
+    }
+
+    /**
+     * Generates a layout the way Game.initializeGame would for the given seed: the map is
+     * generated from the first split of the seed's generator. Its output is kept as text, so
+     * the game only has to print it.
+     * @param seed The game seed.
+     * @return The layout.
+     */
+    Layout generate(long seed) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        GameMap map = new GameMap(new PrintStream(output, false, StandardCharsets.UTF_8), new SplittableRandom(seed).split());
+        generator.accept(map);
+        map.distributeItems(ItemCatalogue.of(config));
+        return new Layout(seed, map, output.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The producer loop: generates layouts while the pool is below its target, else parks until
+     * a take leaves it below the target. If no winnable layout can be made, it reports the error
+     * and parks until the next take, which then fails with the same error on the caller's thread.
+     */
+    private void produce() {
+        while (!closed) {
+            if (depth.get() >= target.get()) {
+                LockSupport.park(this);
+                continue;
+            }
+            Layout layout;
+            try {
+                layout = nextLayout();
+            } catch (RuntimeException e) {
+                System.err.println("Map pool producer: " + e.getMessage());
+                LockSupport.park(this);
+                continue;
+            }
+            layouts.offer(layout);
+            int size = depth.incrementAndGet();
+            if (metrics != null) {
+                metrics.recordMapPoolDepth(size, target.get());
+            }
+        }
+    }
+
+    private synchronized long nextSeed() {
+        return seeds.nextLong();
+    }
+
+    private void record(boolean hit, int left) {
+        if (metrics != null) {
+            metrics.recordMapPoolTake(hit);
+            metrics.recordMapPoolDepth(left, target.get());
+        }
+    }
+
+    /**
+     * @return The number of ready layouts.
+     */
+    public int getDepth() {
+        return depth.get();
+    }
+
+    /**
+     * @return The size the producer currently fills the pool up to.
+     */
+    public int getTarget() {
+        return target.get();
+    }
+
+    /**
+     * @return The number of takes served from the pool.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of takes that found the pool empty and generated on the caller's thread.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of generated layouts rejected by LayoutAnalyzer.
+     */
+    public long getRejects() {
+        return rejects.sum();
+    }
+
+    /**
+     * Stops the producer. Layouts still in the pool can be taken; later takes generate their own.
+     */
+    public void stop() {
+        closed = true;
+        LockSupport.unpark(producer);
+    }
+
+    /**
+     * Stops the producer (see stop).
+     */
+    @Override
+    public void close() {
+        stop();
+    }
+}
@@ -0,0 +1,397 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estimates how winnable a seed is under near-optimal play, with open-loop Monte Carlo Tree
+ * Search over the player's actions. Tree nodes are sequences of actions, each branching on what
+ * the player senses before acting (whether something is nearby). Everything the player cannot
+ * control or see is resampled on every iteration, which makes it a chance node:
+ * the Box Girls' moves and skill triggers (fresh generator seeds) and, unless contents are
+ * declared known, the contents of the boxes still closed (shuffled among them).
+ *
+ * All threads share one tree. Node statistics are single atomic longs (visits and wins),
+ * and a thread descending through a node counts a visit without a win right away: this
+ * virtual loss steers other threads to other branches until the result is backed up.
+ * Every thread plays on its own copy of the game, rolled back in place with GameState
+ * before each iteration. Below the tree, games are finished by a rollout bot.
+ *
+ * Usage: java MctsSolver seed [millis] [threads] [hunt] [known] [rollout=cautious|greedy|random]
+ */
+public class MctsSolver {
+    /** Player actions in the tree: a move per direction, opening a box per slot, using a password, weakness or counter item. */
+    private static final int ACTIONS = Direction.COUNT + Room.BOXES_PER_ROOM + 3;
+    private static final int OPEN_BOX = Direction.COUNT;
+    private static final int USE_ITEM = Direction.COUNT + Room.BOXES_PER_ROOM;
+    private static final double EXPLORATION = 0.7;
+    private static final long VISIT = 1L << 32;
+    /** Below this many visits the evaluation trusts the rollout bot more than the tree statistics. */
+    private static final int MIN_FOLLOWED_VISITS = 500;
+
+    private long seed;
+    private GameConfig config = new GameConfig();
+    private boolean hunting = false;
+    private boolean knownContents = false;
+    private String rolloutBot = "cautious";
+    private int maxTurns = 500;
+
+    private Node root = new Node();
+    private LongAdder iterations = new LongAdder();
+    private LongAdder evaluationGames = new LongAdder();
+    private LongAdder evaluationWins = new LongAdder();
+
+    /**
+     * A tree node: the statistics of one action sequence and its children per action.
+     */
+    private static class Node {
+        /** Visits in the high 32 bits, wins in the low 32 bits, so both change in one atomic add. */
+        private AtomicLong stats = new AtomicLong();
+        /** Children per observation (nothing sensed, or something nearby) and action. */
+        private AtomicReferenceArray<Node> children = new AtomicReferenceArray<>(2 * ACTIONS);
+
+        int visits() {
+            return (int) (stats.get() >>> 32);
+        }
+
+        int wins() {
+            return (int) stats.get();
+        }
+    }
+
+    /**
+     * Constructs a solver for the classic game of the given seed.
+     * @param seed The game seed.
+     */
+    public MctsSolver(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Solves a seed from the command line and prints the estimate and the root actions.
+     */
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        MctsSolver solver = new MctsSolver(args.length > 0 ? Long.parseLong(args[0]) : 1);
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 10_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].equalsIgnoreCase("hunt")) {
+                solver.setHuntingMode(true);
+            } else if (args[i].equalsIgnoreCase("known")) {
+                solver.setKnownContents(true);
+            } else if (args[i].startsWith("rollout=")) {
+                solver.setRolloutBot(args[i].substring("rollout=".length()));
+            }
+        }
+
+        long start = System.nanoTime();
+        double winProbability = solver.solve(threads, millis);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Seed %d: estimated optimal win probability %.4f%n", solver.seed, winProbability);
+        System.out.printf("%d search iterations and %d evaluation games on %d threads in %.1f s (%.0f/s)%n",
+                solver.getIterations(), solver.getEvaluationGames(), threads, seconds,
+                (solver.getIterations() + solver.getEvaluationGames()) / seconds);
+        System.out.println(solver.describeRoot());
+    }
+
+    /**
+     * @param config The balance parameters of the game to solve.
+     */
+    public void setConfig(GameConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * @param hunting True to solve the game with hunting Box Girls.
+     */
+    public void setHuntingMode(boolean hunting) {
+        this.hunting = hunting;
+    }
+
+    /**
+     * @param knownContents True to let the player know every box's content (an upper bound),
+     *                      false to treat closed boxes as unknown.
+     */
+    public void setKnownContents(boolean knownContents) {
+        this.knownContents = knownContents;
+    }
+
+    /**
+     * @param rolloutBot The bot that finishes games below the tree (see Simulation.newStrategy).
+     */
+    public void setRolloutBot(String rolloutBot) {
+        Simulation.newStrategy(rolloutBot, new SplittableRandom()); // fail fast on unknown names
+        this.rolloutBot = rolloutBot;
+    }
+
+    /**
+     * Searches for four fifths of the time budget, then spends the rest playing the best policy
+     * found (the most visited action at each node, then the rollout bot) without exploring.
+     * Its win rate is achieved by an actual strategy, so it approaches the optimal win probability
+     * from below, whereas the search statistics are diluted by exploration.
+     * @param threads The number of search threads.
+     * @param millis The time budget.
+     * @return The estimated win probability under the best play found.
+     */
+    public double solve(int threads, long millis) throws InterruptedException, ExecutionException {
+        long start = System.nanoTime();
+        long searchEnd = start + millis * 800_000;
+        long deadline = start + millis * 1_000_000;
+        SplittableRandom seeds = new SplittableRandom(seed ^ 0x5DEECE66DL);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Worker worker = new Worker(seeds.split());
+                workers.add(pool.submit(() -> {
+                    while (System.nanoTime() < searchEnd) {
+                        worker.iterate(false);
+                    }
+                    while (System.nanoTime() < deadline) {
+                        worker.iterate(true);
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return getEvaluationGames() == 0 ? 0 : (double) evaluationWins.sum() / getEvaluationGames();
+    }
+
+    /**
+     * @return The number of search iterations (simulated games) run so far.
+     */
+    public long getIterations() {
+        return iterations.sum();
+    }
+
+    /**
+     * @return The number of games played with the best policy found.
+     */
+    public long getEvaluationGames() {
+        return evaluationGames.sum();
+    }
+
+    /**
+     * @return One line per first action tried: its visits and win rate.
+     */
+    public String describeRoot() {
+        StringBuilder sb = new StringBuilder("First action        visits   win rate\n");
+        for (int a = 0; a < 2 * ACTIONS; a++) {
+            Node child = root.children.get(a);
+            if (child != null && child.visits() > 0) {
+                sb.append(String.format("%-18s %7d   %.4f%n", actionName(a % ACTIONS), child.visits(),
+                        (double) child.wins() / child.visits()));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String actionName(int action) {
+        if (action < OPEN_BOX) return "move " + Direction.values()[action];
+        if (action < USE_ITEM) return "open box slot " + (action - OPEN_BOX);
+        return new String[] {"use password", "use weakness", "use counter item"}[action - USE_ITEM];
+    }
+
+    /**
+     * One search thread: its own game, rolled back to the start before every iteration, and
+     * the strategy that walks the tree and then hands over to the rollout bot.
+     */
+    private class Worker implements PlayerStrategy {
+        private SplittableRandom random;
+        private Game game;
+        private GameState start;
+        private Node[] path = new Node[maxTurns];
+        private int depth;
+        private Node node;
+        private boolean inTree;
+        private boolean evaluating;
+        private PlayerStrategy rollout;
+        private int[] legal = new int[ACTIONS];
+        private List<Box> closedBoxes = new ArrayList<>();
+        private int[] closedContents = new int[0];
+
+        Worker(SplittableRandom random) {
+            this.random = random;
+            this.game = new Game(null, Simulation.SILENT, seed);
+            game.setQuiet(true);
+            game.setConfig(config);
+            game.setHuntingMode(hunting);
+            game.setStrategy(this);
+            game.simulate(0);
+            this.start = GameState.capture(game);
+        }
+
+        /**
+         * Plays one game from the start: down the tree, one new node, then a rollout.
+         * @param evaluate True to follow the most visited actions without changing the tree.
+         */
+        void iterate(boolean evaluate) {
+            start.restore(game);
+            game.reseed(random.nextLong());
+            HunterRegistry hunters = game.getHunters();
+            for (int i = 0; i < hunters.size(); i++) {
+                hunters.get(i).reseed(random.nextLong());
+            }
+            if (!knownContents) {
+                shuffleClosedBoxes();
+            }
+            depth = 0;
+            node = root;
+            inTree = true;
+            evaluating = evaluate;
+            rollout = Simulation.newStrategy(rolloutBot, random.split());
+
+            while (!game.isGameOver() && game.getTurnCount() < maxTurns) {
+                game.playTurn();
+            }
+
+            int reward = game.isWin() ? 1 : 0;
+            if (evaluating) {
+                evaluationGames.increment();
+                evaluationWins.add(reward);
+                return;
+            }
+            // The visits were counted on the way down (virtual loss); only the win is added now.
+            for (int i = 0; i < depth; i++) {
+                path[i].stats.addAndGet(reward);
+            }
+            root.stats.addAndGet(VISIT + reward);
+            iterations.increment();
+        }
+
+        /**
+         * Resamples the hidden contents: the items in closed boxes are dealt out again among them.
+         */
+        private void shuffleClosedBoxes() {
+            closedBoxes.clear();
+            List<Box> boxes = game.getMap().getAllBoxes();
+            if (closedContents.length < boxes.size()) {
+                closedContents = new int[boxes.size()];
+            }
+            for (int i = 0; i < boxes.size(); i++) {
+                Box box = boxes.get(i);
+                if (!box.isOpen()) {
+                    closedContents[closedBoxes.size()] = box.getContentId();
+                    closedBoxes.add(box);
+                }
+            }
+            RandomUtils.shuffle(closedContents, closedBoxes.size(), random);
+            for (int i = 0; i < closedBoxes.size(); i++) {
+                closedBoxes.get(i).setContentId(closedContents[i]);
+            }
+        }
+
+        @Override
+        public PlayerAction nextAction(PlayerView view) {
+            if (!inTree) {
+                return rollout.nextAction(view);
+            }
+
+            int count = legalActions(view);
+            if (count == 0) {
+                inTree = false;
+                return rollout.nextAction(view);
+            }
+
+            // UCT, trying unvisited actions first (in random order).
+            int parentVisits = Math.max(1, node.visits());
+            double logParent = Math.log(parentVisits);
+            int chosen = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            int observation = view.isSomethingNearby() ? ACTIONS : 0;
+            if (evaluating) {
+                return followBest(view, count, observation);
+            }
+            int offset = random.nextInt(count);
+            for (int k = 0; k < count; k++) {
+                int action = legal[(k + offset) % count];
+                Node child = node.children.get(observation + action);
+                int visits = child == null ? 0 : child.visits();
+                if (visits == 0) {
+                    chosen = action;
+                    break;
+                }
+                double score = (double) child.wins() / visits + EXPLORATION * Math.sqrt(logParent / visits);
+                if (score > bestScore) {
+                    bestScore = score;
+                    chosen = action;
+                }
+            }
+
+            Node child = node.children.get(observation + chosen);
+            if (child == null) {
+                node.children.compareAndSet(observation + chosen, null, new Node());
+                child = node.children.get(observation + chosen);
+            }
+            long before = child.stats.getAndAdd(VISIT);
+            if ((before >>> 32) == 0 || depth + 1 >= path.length) {
+                // A new leaf: the rest of the game is played by the rollout bot.
+                inTree = false;
+            }
+            path[depth++] = child;
+            node = child;
+            return toAction(chosen, view);
+        }
+
+        /**
+         * Plays the most visited legal action of the current node, or hands over to the rollout
+         * bot where the search has too few samples to beat it.
+         */
+        private PlayerAction followBest(PlayerView view, int count, int observation) {
+            Node best = null;
+            int chosen = -1;
+            for (int k = 0; k < count; k++) {
+                Node child = node.children.get(observation + legal[k]);
+                if (child != null && (best == null || child.visits() > best.visits())) {
+                    best = child;
+                    chosen = legal[k];
+                }
+            }
+            if (best == null || best.visits() < MIN_FOLLOWED_VISITS) {
+                inTree = false;
+                return rollout.nextAction(view);
+            }
+            node = best;
+            return toAction(chosen, view);
+        }
+
+        /**
+         * Fills the legal array with the actions available in the current room.
+         * @return The number of legal actions.
+         */
+        private int legalActions(PlayerView view) {
+            int count = 0;
+            for (int i = 0; i < view.getExitCount(); i++) {
+                legal[count++] = view.getExit(i).ordinal();
+            }
+            for (int i = 0; i < view.getBoxCount(); i++) {
+                if (!view.isBoxOpen(i)) legal[count++] = OPEN_BOX + i;
+            }
+            if (view.countItems(Password.class) > 0) legal[count++] = USE_ITEM;
+            if (view.countItems(BoxGirlWeakness.class) > 0) legal[count++] = USE_ITEM + 1;
+            if (view.countItems(CounterItem.class) > 0) legal[count++] = USE_ITEM + 2;
+            return count;
+        }
+
+        private PlayerAction toAction(int action, PlayerView view) {
+            if (action < OPEN_BOX) return PlayerAction.move(Direction.values()[action]);
+            if (action < USE_ITEM) return PlayerAction.openBox(view.getBoxId(action - OPEN_BOX));
+            switch (action - USE_ITEM) {
+                case 0: return PlayerAction.useItem(view.getFirstItem(Password.class));
+                case 1: return PlayerAction.useItem(view.getFirstItem(BoxGirlWeakness.class));
+                default: return PlayerAction.useItem(view.getFirstItem(CounterItem.class));
+            }
+        }
+    }
+}
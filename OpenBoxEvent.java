@@ -0,0 +1,20 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for Game.handleOpenBox.
+ */
+@Name("boxgirl.OpenBox")
+@Label("Open Box")
+@Category("Box Girl")
+@Description("The player opening a box")
+public class OpenBoxEvent extends Event {
+    @Label("Box ID")
+    int boxId;
+
+    @Label("Outcome")
+    String outcome;
+}
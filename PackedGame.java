@@ -0,0 +1,929 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A game played directly on primitive arrays instead of the Room/Box/Item object graph.
+ * The rooms and exits come from a shared PackedLayout and the items from a shared ItemCatalogue;
+ * what changes during a game is a handful of arrays indexed by box (open flags, content item
+ * IDs, hiding Box Girl numbers), by Box Girl (room, box, skills, schedule) and by room (how many
+ * Box Girls are there), plus the inventory as item IDs. A game takes about a tenth of the heap
+ * of a Game and a turn touches a few cache lines instead of chasing references.
+ *
+ * The rules are those of Game, BoxGirl and the items, including their quirks, and every random
+ * decision is drawn in the same order from generators split the same way, so a PackedGame made
+ * with of(Game) plays exactly like the Game it was made from. Packed games are always driven by
+ * a PlayerStrategy, print nothing and record no journal, metrics or events.
+ *
+ * While every Box Girl acts every turn, a turn simply runs them all in number order. Once
+ * of(Game) copies a longer period, a later due tick or another order, they are scheduled on a timing wheel
+ * like HunterRegistry's, kept as intrusive FIFO lists in int arrays (a head and tail per bucket,
+ * a next link per Box Girl), so a turn only visits the Box Girls in its bucket. of(Game) copies
+ * the registry's buckets in order, so Box Girls due at the same tick act in the same order.
+ */
+public final class PackedGame {
+    private static final int BOXES = Room.BOXES_PER_ROOM;
+    // As in HunterRegistry, so Box Girls due at the same tick act in the same order.
+    private static final int WHEEL_SIZE = HunterRegistry.getWheelSize();
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final PackedLayout layout;
+    private final ItemCatalogue items;
+    private final long seed;
+    private SplittableRandom random;
+    private GameConfig config = new GameConfig();
+    private boolean huntingMode = false;
+    private PlayerStrategy strategy;
+    private View view;
+
+    // Boxes, indexed by box ID - 1.
+    private final boolean[] open;
+    private final int[] content;
+    private final short[] occupant;
+    private final int[] freeBoxes;
+    private final int[] freeSlot;
+    private int freeCount = 0;
+    private int hideableCount = 0;
+
+    // The player.
+    private int playerRoom;
+    private int[] held = new int[8];
+    private int heldCount = 0;
+
+    // Box Girls, indexed by number.
+    private int hunterCount = 0;
+    private int[] hunterRoom = new int[2];
+    private int[] hunterBox = new int[2];
+    private int[] dueTick = new int[2];
+    private int[] period = new int[2];
+    private int[] nextDue = new int[2];
+    private int[] wheelHead;
+    private int[] wheelTail;
+    private int[][] skills = new int[2][];
+    private int[] skillCount = new int[2];
+    private SplittableRandom[] hunterRandom = new SplittableRandom[2];
+    private final int[] huntersIn;
+
+    private int turnCount = 0;
+    private int boxesOpened = 0;
+    private boolean isGameOver = false;
+    private boolean isWin = false;
+
+    /**
+     * Constructs a game on a packed mansion. The same layout, items and seed always replay the
+     * same game; it does not play like a Game with the same seed, whose layout comes from that seed.
+     * @param layout The mansion.
+     * @param items The items to hide, e.g. ItemCatalogue.of(config).
+     * @param seed The seed driving every random decision of this game.
+     */
+    public PackedGame(PackedLayout layout, ItemCatalogue items, long seed) {
+        this.layout = layout;
+        this.items = items;
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        int boxes = layout.getBoxCount();
+        this.open = new boolean[boxes];
+        this.content = new int[boxes];
+        this.occupant = new short[boxes];
+        this.freeBoxes = new int[boxes];
+        this.freeSlot = new int[boxes];
+        this.huntersIn = new int[layout.getRoomCount()];
+    }
+
+    /**
+     * Packs the current state of a game, which must be initialized. Like GameSnapshot.save, it
+     * draws fresh seeds for the Box Girls and the game and reseeds both games with them, so the
+     * two make the same random decisions from here on: played by equal strategies, they stay in
+     * lockstep turn by turn.
+     * @param game The game to pack (its generators are reseeded).
+     * @return The packed game, sharing nothing mutable with the game.
+     */
+    public static PackedGame of(Game game) {
+        GameMap map = game.getMap();
+        ItemCatalogue items = game.getCatalogue();
+        PackedGame packed = new PackedGame(PackedLayout.of(map), items, game.getSeed());
+        packed.config = game.getConfig();
+        packed.huntingMode = game.isHuntingMode();
+        packed.turnCount = game.getTurnCount();
+        packed.isGameOver = game.isGameOver();
+        packed.isWin = game.isWin();
+
+        List<Box> boxes = map.getAllBoxes();
+        packed.freeCount = map.getFreeBoxCount();
+        for (int i = 0; i < boxes.size(); i++) {
+            Box box = boxes.get(i);
+            int b = box.getId() - 1;
+            packed.open[b] = box.isOpen();
+            packed.content[b] = box.getContentId();
+            BoxGirl occupant = box.getHiddenOccupant();
+            packed.occupant[b] = (short) (occupant == null ? 0 : occupant.getNumber() + 1);
+            // Keep the free-box index in the same order, so stolen items land in the same boxes.
+            packed.freeSlot[b] = box.getFreeSlot();
+            if (box.getFreeSlot() >= 0) {
+                packed.freeBoxes[box.getFreeSlot()] = b;
+            }
+            if (packed.isHideable(b)) {
+                packed.hideableCount++;
+            }
+        }
+
+        Player player = game.getPlayer();
+        packed.playerRoom = player.getCurrentRoom().getIndex();
+        for (int i = 0; i < player.getInventory().size(); i++) {
+            packed.addHeld(player.getItemId(i));
+        }
+
+        HunterRegistry hunters = game.getHunters();
+        long[] girlSeeds = new long[hunters.size()];
+        for (int i = 0; i < girlSeeds.length; i++) {
+            girlSeeds[i] = game.getRandom().nextLong();
+        }
+        long gameSeed = game.getRandom().nextLong();
+        for (int i = 0; i < hunters.size(); i++) {
+            BoxGirl girl = hunters.get(i);
+            Box box = girl.getHiddenInBox();
+            // The box is already marked as hers above.
+            int number = packed.addHunter(girl.getCurrentRoom().getIndex(), -1, new SplittableRandom(girlSeeds[i]));
+            packed.hunterBox[number] = box == null ? -1 : box.getId() - 1;
+            packed.period[number] = girl.getPeriod();
+            packed.dueTick[number] = hunters.getDueTick(i);
+            for (Manuscript skill : girl.getUnlockedSkills()) {
+                packed.addSkill(number, items.idOf(skill));
+            }
+            girl.reseed(girlSeeds[i]);
+        }
+        int[] next = hunters.getBucket((packed.turnCount + 1) & WHEEL_MASK);
+        for (int i = 0; i < packed.hunterCount; i++) {
+            if (packed.period[i] != 1 || packed.dueTick[i] != packed.turnCount + 1 || next[i] != i) {
+                packed.startWheel(hunters);
+                break;
+            }
+        }
+        game.reseed(gameSeed);
+        packed.random = new SplittableRandom(gameSeed);
+        return packed;
+    }
+
+    /**
+     * Replaces the balance parameters. Must be set before the game starts.
+     * Only the chances and move attempts are read; the items are those given to the constructor.
+     * @param config The balance parameters; it must not change while the game runs.
+     */
+    public void setConfig(GameConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Enables or disables hunting mode. Must be set before the game starts.
+     * @param huntingMode True if the Box Girls step towards the player instead of wandering.
+     */
+    public void setHuntingMode(boolean huntingMode) {
+        this.huntingMode = huntingMode;
+    }
+
+    /**
+     * Lets a strategy choose the player's actions. Must be set before the first turn.
+     * @param strategy The strategy.
+     */
+    public void setStrategy(PlayerStrategy strategy) {
+        this.strategy = strategy;
+        if (view == null) {
+            view = new View();
+        }
+    }
+
+    /**
+     * Plays a whole game: hides the items, places the player and the Box Girl, and plays turns.
+     * @param maxTurns The number of turns after which an unfinished game is abandoned.
+     */
+    public void simulate(int maxTurns) {
+        initializeGame();
+        while (!isGameOver && turnCount < maxTurns) {
+            playTurn();
+        }
+    }
+
+    /**
+     * Distributes the items and places the player and the Box Girl, like Game.initializeGame.
+     */
+    private void initializeGame() {
+        int boxes = freeBoxes.length;
+        for (int b = 0; b < boxes; b++) {
+            freeBoxes[b] = b;
+            freeSlot[b] = b;
+        }
+        freeCount = boxes;
+        hideableCount = boxes;
+
+        int[] ids = new int[items.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 1;
+        }
+        RandomUtils.shuffle(ids, ids.length, random);
+        if (ids.length * 2 < boxes) {
+            // Large mansions: draw distinct random boxes instead of shuffling all of them.
+            for (int id : ids) {
+                int b;
+                do {
+                    b = random.nextInt(boxes);
+                } while (content[b] != 0);
+                setContent(b, id);
+            }
+        } else {
+            int[] order = new int[boxes];
+            for (int b = 0; b < boxes; b++) {
+                order[b] = b;
+            }
+            RandomUtils.shuffle(order, boxes, random);
+            for (int i = 0; i < Math.min(ids.length, boxes); i++) {
+                setContent(order[i], ids[i]);
+            }
+        }
+
+        playerRoom = layout.getFirstHall();
+        int secondHall = layout.getSecondHall();
+        addHunter(secondHall, secondHall * BOXES, random.split());
+    }
+
+    /**
+     * Plays a single turn: the strategy's action, then the passive triggers of the Box Girls due this turn.
+     */
+    public void playTurn() {
+        playerTurn();
+        turnCount++;
+        if (isGameOver) return;
+
+        if (wheelHead == null) {
+            // Everyone is due every turn. Box Girls are only added during the player's turn, so the count is fixed here.
+            for (int i = 0; i < hunterCount; i++) {
+                checkPassiveTriggers(i);
+                dueTick[i] = turnCount + 1;
+            }
+            return;
+        }
+        // Detach the bucket and requeue each Box Girl as she is visited: those due act and move to
+        // the bucket of their next turn, those due on a later lap stay in this one.
+        int bucket = turnCount & WHEEL_MASK;
+        int number = wheelHead[bucket];
+        wheelHead[bucket] = -1;
+        while (number >= 0) {
+            int next = nextDue[number];
+            if (dueTick[number] == turnCount) {
+                checkPassiveTriggers(number);
+                dueTick[number] = turnCount + period[number];
+            }
+            enqueue(dueTick[number] & WHEEL_MASK, number);
+            number = next;
+        }
+    }
+
+    /**
+     * Switches to the timing wheel, queueing the Box Girls as they wait in a game's registry.
+     * @param hunters The registry of the game this one was packed from.
+     */
+    private void startWheel(HunterRegistry hunters) {
+        wheelHead = new int[WHEEL_SIZE];
+        wheelTail = new int[WHEEL_SIZE];
+        Arrays.fill(wheelHead, -1);
+        for (int bucket = 0; bucket < WHEEL_SIZE; bucket++) {
+            for (int number : hunters.getBucket(bucket)) {
+                enqueue(bucket, number);
+            }
+        }
+    }
+
+    /**
+     * Appends a Box Girl to the end of a wheel bucket.
+     */
+    private void enqueue(int bucket, int number) {
+        nextDue[number] = -1;
+        if (wheelHead[bucket] < 0) {
+            wheelHead[bucket] = number;
+        } else {
+            nextDue[wheelTail[bucket]] = number;
+        }
+        wheelTail[bucket] = number;
+    }
+
+    /**
+     * Carries out the strategy's action, as Game.strategyTurn does.
+     */
+    private void playerTurn() {
+        PlayerAction action = strategy.nextAction(view);
+        if (action == null) return;
+        switch (action.getKind()) {
+            case MOVE:
+                int next = layout.getNeighbor(playerRoom, action.getDirection());
+                if (next >= 0) {
+                    playerRoom = next;
+                }
+                break;
+            case OPEN_BOX:
+                openBox(roomBox(action.getBoxId(), false));
+                break;
+            case USE_ITEM:
+                int slot = heldSlot(action.getItem());
+                if (slot >= 0) {
+                    useItem(held[slot]);
+                }
+                break;
+            default:
+                putItem(roomBox(action.getBoxId(), true), heldSlot(action.getItem()));
+                break;
+        }
+    }
+
+    /**
+     * @return The box (from 0) with the given ID if it is in the player's room and open or
+     *         closed as asked, otherwise -1.
+     */
+    private int roomBox(int boxId, boolean isOpen) {
+        int b = boxId - 1;
+        return b >= 0 && b < open.length && b / BOXES == playerRoom && open[b] == isOpen ? b : -1;
+    }
+
+    /**
+     * Opens an unopened box of the player's room, as Game.openBox does.
+     * @param b The box, or -1.
+     */
+    private void openBox(int b) {
+        if (b < 0) return;
+        if (occupant[b] != 0) {
+            endGame(false);
+            return;
+        }
+        setOpen(b, true);
+        boxesOpened++;
+        int id = content[b];
+        if (id == 0 || items.kind(id) == ItemCatalogue.EMPTY) return;
+        if (items.kind(id) != ItemCatalogue.MANUSCRIPT) {
+            addHeld(id);
+        } else if (items.skill(id) == Skill.SISTER) {
+            int basement = layout.getBasement();
+            addHunter(basement, basement * BOXES + 2, random.split());
+        } else {
+            unlockSkill(id);
+        }
+    }
+
+    /**
+     * Puts a held item into an opened box, which closes it, as Box.putItem does.
+     * @param b The opened box, or -1.
+     * @param slot The item's position in the inventory, or -1.
+     */
+    private void putItem(int b, int slot) {
+        if (b < 0 || slot < 0) return;
+        int id = held[slot];
+        setContent(b, id);
+        close(b);
+        removeHeld(id);
+    }
+
+    /**
+     * Uses a held item, as its use method does.
+     * @param id The item ID.
+     */
+    private void useItem(int id) {
+        switch (items.kind(id)) {
+            case ItemCatalogue.PASSWORD:
+                if (countHeld(ItemCatalogue.PASSWORD) >= 3 && (layout.getFeatureFlags(playerRoom) & PackedLayout.EXIT) != 0) {
+                    endGame(true);
+                }
+                break;
+            case ItemCatalogue.WEAKNESS:
+                if (countHeld(ItemCatalogue.WEAKNESS) >= 2 && (layout.getFeatureFlags(playerRoom) & PackedLayout.EXORCISM) != 0) {
+                    endGame(true);
+                }
+                break;
+            case ItemCatalogue.COUNTER:
+                removeHeld(id);
+                if (huntersIn[playerRoom] == 0) return;
+                for (int i = 0; i < hunterCount; i++) {
+                    if (hunterRoom[i] == playerRoom) {
+                        randomMove(i);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void endGame(boolean win) {
+        isGameOver = true;
+        isWin = win;
+    }
+
+    /**
+     * Runs a Box Girl's passive triggers, as BoxGirl.checkPassiveTriggers does.
+     * @param i The Box Girl's number.
+     */
+    private void checkPassiveTriggers(int i) {
+        SplittableRandom girlRandom = hunterRandom[i];
+        if (skillCount[i] > 0 && girlRandom.nextDouble() < config.getSkillChance()) {
+            int skill = skills[i][girlRandom.nextInt(skillCount[i])];
+            applySkill(i, items.skill(skill));
+        }
+        if (playerRoom != hunterRoom[i]) {
+            randomMove(i);
+        }
+    }
+
+    /**
+     * Moves a Box Girl and hides her in a box, retrying until the move attempts run out,
+     * as BoxGirl.randomMove does.
+     * @param i The Box Girl's number.
+     * @return True if she found a box to hide in.
+     */
+    private boolean randomMove(int i) {
+        SplittableRandom girlRandom = hunterRandom[i];
+        for (int attempts = config.getMoveAttempts(); attempts > 0; attempts--) {
+            if (hunterBox[i] >= 0) {
+                setOccupant(hunterBox[i], 0);
+                hunterBox[i] = -1;
+            }
+            if (hideableCount == 0) return false;
+
+            int step;
+            if (girlRandom.nextDouble() < config.getTeleportChance()) {
+                step = playerRoom;
+            } else {
+                step = huntingMode ? layout.nextStep(hunterRoom[i], playerRoom) : -1;
+                if (step < 0) {
+                    int exits = layout.getExitCount(hunterRoom[i]);
+                    if (exits == 0) return false;
+                    step = layout.getExitRoom(hunterRoom[i], girlRandom.nextInt(exits));
+                }
+            }
+            moveHunter(i, step);
+
+            int b = randomHideableBox(step, girlRandom);
+            if (b >= 0) {
+                setOccupant(b, i + 1);
+                hunterBox[i] = b;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Picks a random closed, unoccupied box of a room, as Room.getRandomHideableBox does.
+     * @return The box, or -1 if there is none.
+     */
+    private int randomHideableBox(int room, SplittableRandom girlRandom) {
+        int first = room * BOXES;
+        long mask = 0;
+        for (int s = 0; s < BOXES; s++) {
+            if (isHideable(first + s)) mask |= 1L << s;
+        }
+        if (mask == 0) return -1;
+        for (int k = girlRandom.nextInt(Long.bitCount(mask)); k > 0; k--) {
+            mask &= mask - 1;
+        }
+        return first + Long.numberOfTrailingZeros(mask);
+    }
+
+    /**
+     * Applies the effect of a skill, as BoxGirl.applySkill does.
+     * @param i The Box Girl's number.
+     * @param skill The skill.
+     */
+    private void applySkill(int i, Skill skill) {
+        int first = playerRoom * BOXES;
+        switch (skill) {
+            case RIGHT_BESIDE_YOU:
+                moveHunter(i, playerRoom);
+                break;
+            case MOVING_AROUND:
+                for (int s = 0; s < BOXES; s++) {
+                    close(first + s);
+                }
+                for (int s = BOXES - 1; s > 0; s--) {
+                    int j = first + hunterRandom[i].nextInt(s + 1);
+                    int swap = content[first + s];
+                    setContent(first + s, content[j]);
+                    setContent(j, swap);
+                }
+                break;
+            case I_WANT_TO_OPEN_IT:
+                int target = -1;
+                for (int b = first; b < first + BOXES; b++) {
+                    boolean manuscript = items.kind(content[b]) == ItemCatalogue.MANUSCRIPT;
+                    if (!open[b] && (target < 0 || manuscript)) {
+                        target = b;
+                        if (manuscript) break;
+                    }
+                }
+                if (target >= 0) {
+                    // Unlike the player's own choice, a forced opening ignores a hiding Box Girl.
+                    setOpen(target, true);
+                    boxesOpened++;
+                    int id = content[target];
+                    if (id != 0) {
+                        if (items.kind(id) == ItemCatalogue.MANUSCRIPT) {
+                            unlockSkill(id);
+                        } else {
+                            addHeld(id);
+                        }
+                    }
+                }
+                break;
+            case GIVE_IT_TO_ME:
+                int slot = firstHeld(ItemCatalogue.WEAKNESS);
+                if (slot >= 0) {
+                    int id = held[slot];
+                    removeHeld(id);
+                    if (freeCount > 0) {
+                        setContent(freeBoxes[random.nextInt(freeCount)], id);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Unlocks a manuscript's skill for every Box Girl, as Manuscript.activateSkill does.
+     * @param id The manuscript's item ID.
+     */
+    private void unlockSkill(int id) {
+        for (int i = 0; i < hunterCount; i++) {
+            addSkill(i, id);
+        }
+    }
+
+    private void addSkill(int i, int id) {
+        if (skills[i] == null) {
+            skills[i] = new int[4];
+        } else if (skillCount[i] == skills[i].length) {
+            skills[i] = Arrays.copyOf(skills[i], skillCount[i] * 2);
+        }
+        skills[i][skillCount[i]++] = id;
+    }
+
+    /**
+     * Adds a Box Girl, as the BoxGirl constructor does.
+     * @param room Her start room.
+     * @param box The box she starts hiding in, or -1; if it is taken she starts unhidden.
+     * @param girlRandom Her generator.
+     * @return Her number.
+     */
+    private int addHunter(int room, int box, SplittableRandom girlRandom) {
+        int number = hunterCount++;
+        if (number == hunterRoom.length) {
+            int size = number * 2;
+            hunterRoom = Arrays.copyOf(hunterRoom, size);
+            hunterBox = Arrays.copyOf(hunterBox, size);
+            dueTick = Arrays.copyOf(dueTick, size);
+            period = Arrays.copyOf(period, size);
+            nextDue = Arrays.copyOf(nextDue, size);
+            skills = Arrays.copyOf(skills, size);
+            skillCount = Arrays.copyOf(skillCount, size);
+            hunterRandom = Arrays.copyOf(hunterRandom, size);
+        }
+        hunterRoom[number] = room;
+        huntersIn[room]++;
+        hunterRandom[number] = girlRandom;
+        dueTick[number] = turnCount + 1;
+        period[number] = 1;
+        if (wheelHead != null) {
+            enqueue(dueTick[number] & WHEEL_MASK, number);
+        }
+        hunterBox[number] = -1;
+        if (box >= 0 && occupant[box] == 0) {
+            hunterBox[number] = box;
+            setOccupant(box, number + 1);
+        }
+        return number;
+    }
+
+    private void moveHunter(int i, int room) {
+        huntersIn[hunterRoom[i]]--;
+        huntersIn[room]++;
+        hunterRoom[i] = room;
+    }
+
+    /**
+     * Closes a box unless a Box Girl hides in it or it holds an "Empty Box" marker, as Box.close does.
+     */
+    private void close(int b) {
+        if (occupant[b] != 0) return;
+        if (content[b] == 0 || items.kind(content[b]) != ItemCatalogue.EMPTY) {
+            setOpen(b, false);
+        }
+    }
+
+    private boolean isHideable(int b) {
+        return !open[b] && occupant[b] == 0;
+    }
+
+    private void setOpen(int b, boolean value) {
+        boolean wasHideable = isHideable(b);
+        open[b] = value;
+        updateIndex(b, wasHideable);
+    }
+
+    private void setContent(int b, int id) {
+        boolean wasHideable = isHideable(b);
+        content[b] = id;
+        updateIndex(b, wasHideable);
+    }
+
+    private void setOccupant(int b, int number) {
+        boolean wasHideable = isHideable(b);
+        occupant[b] = (short) number;
+        updateIndex(b, wasHideable);
+    }
+
+    /**
+     * Keeps the hideable-box count and the free-box index current after a box changed,
+     * in the same order as GameMap.updateFreeBox.
+     */
+    private void updateIndex(int b, boolean wasHideable) {
+        if (isHideable(b) != wasHideable) {
+            hideableCount += wasHideable ? -1 : 1;
+        }
+        int slot = freeSlot[b];
+        if (!open[b] && content[b] == 0) {
+            if (slot >= 0) return;
+            freeBoxes[freeCount] = b;
+            freeSlot[b] = freeCount++;
+        } else if (slot >= 0) {
+            int last = freeBoxes[--freeCount];
+            freeBoxes[slot] = last;
+            freeSlot[last] = slot;
+            freeSlot[b] = -1;
+        }
+    }
+
+    private void addHeld(int id) {
+        if (heldCount == held.length) {
+            held = Arrays.copyOf(held, heldCount * 2);
+        }
+        held[heldCount++] = id;
+    }
+
+    /**
+     * Removes the earliest obtained copy of an item, as Player.removeItem does.
+     */
+    private void removeHeld(int id) {
+        for (int i = 0; i < heldCount; i++) {
+            if (held[i] == id) {
+                System.arraycopy(held, i + 1, held, i, heldCount - i - 1);
+                heldCount--;
+                return;
+            }
+        }
+    }
+
+    private int countHeld(byte kind) {
+        int count = 0;
+        for (int i = 0; i < heldCount; i++) {
+            if (items.kind(held[i]) == kind) count++;
+        }
+        return count;
+    }
+
+    private int firstHeld(byte kind) {
+        for (int i = 0; i < heldCount; i++) {
+            if (items.kind(held[i]) == kind) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return The position of the item in the inventory, or -1 if the player does not hold it.
+     */
+    private int heldSlot(Item item) {
+        for (int i = 0; i < heldCount; i++) {
+            if (items.get(held[i]) == item) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return The seed this game was constructed with.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return The number of turns played so far.
+     */
+    public int getTurnCount() {
+        return turnCount;
+    }
+
+    /**
+     * @return True if the game has ended.
+     */
+    public boolean isGameOver() {
+        return isGameOver;
+    }
+
+    /**
+     * @return True if the player won.
+     */
+    public boolean isWin() {
+        return isWin;
+    }
+
+    /**
+     * @return The number of boxes the player opened in this game, by choice or forced.
+     */
+    public int getBoxesOpened() {
+        return boxesOpened;
+    }
+
+    /**
+     * @return The index of the player's room.
+     */
+    public int getPlayerRoom() {
+        return playerRoom;
+    }
+
+    /**
+     * @param boxId A box ID.
+     * @return True if the box has been opened.
+     */
+    public boolean isBoxOpen(int boxId) {
+        return open[boxId - 1];
+    }
+
+    /**
+     * @param boxId A box ID.
+     * @return The item inside the box, or null.
+     */
+    public Item getBoxContent(int boxId) {
+        int id = content[boxId - 1];
+        return id == 0 ? null : items.get(id);
+    }
+
+    /**
+     * @param boxId A box ID.
+     * @return The number of the Box Girl hiding in the box, or -1.
+     */
+    public int getBoxOccupant(int boxId) {
+        return occupant[boxId - 1] - 1;
+    }
+
+    /**
+     * @return The number of Box Girls.
+     */
+    public int getHunterCount() {
+        return hunterCount;
+    }
+
+    /**
+     * @param number A Box Girl's number.
+     * @return The index of her room.
+     */
+    public int getHunterRoom(int number) {
+        return hunterRoom[number];
+    }
+
+    /**
+     * @param number A Box Girl's number.
+     * @return The number of skills she has unlocked.
+     */
+    public int getSkillCount(int number) {
+        return skillCount[number];
+    }
+
+    /**
+     * @return The player's items in the order they were obtained, as a read-only list over the IDs.
+     */
+    public List<Item> getInventory() {
+        if (view == null) {
+            view = new View();
+        }
+        return view.inventory;
+    }
+
+    /**
+     * The player's view of a packed game, reading the arrays in place.
+     */
+    private final class View implements PlayerView {
+        private final List<Item> inventory = new AbstractList<Item>() {
+            @Override
+            public Item get(int index) {
+                if (index >= heldCount) throw new IndexOutOfBoundsException(index);
+                return items.get(held[index]);
+            }
+
+            @Override
+            public int size() {
+                return heldCount;
+            }
+        };
+
+        @Override
+        public int getTurnCount() {
+            return turnCount;
+        }
+
+        @Override
+        public String getRoomName() {
+            return layout.getName(playerRoom);
+        }
+
+        @Override
+        public String getRoomFeature() {
+            return layout.getFeature(playerRoom);
+        }
+
+        @Override
+        public Feature getRoomFeatureKind() {
+            return layout.getFeatureKind(playerRoom);
+        }
+
+        @Override
+        public int getRoomIndex() {
+            return playerRoom;
+        }
+
+        @Override
+        public int getRoomCount() {
+            return layout.getRoomCount();
+        }
+
+        @Override
+        public int getExitCount() {
+            return layout.getExitCount(playerRoom);
+        }
+
+        @Override
+        public Direction getExit(int i) {
+            return layout.getExit(playerRoom, i);
+        }
+
+        @Override
+        public int getExitRoomIndex(int i) {
+            return layout.getExitRoom(playerRoom, i);
+        }
+
+        @Override
+        public int getBoxCount() {
+            return BOXES;
+        }
+
+        @Override
+        public int getBoxId(int i) {
+            return playerRoom * BOXES + i + 1;
+        }
+
+        @Override
+        public boolean isBoxOpen(int i) {
+            return open[playerRoom * BOXES + i];
+        }
+
+        @Override
+        public int getUnopenedBoxCount() {
+            int count = 0;
+            for (int b = playerRoom * BOXES; b < (playerRoom + 1) * BOXES; b++) {
+                if (!open[b]) count++;
+            }
+            return count;
+        }
+
+        @Override
+        public int getUnopenedBoxId(int k) {
+            for (int b = playerRoom * BOXES; b < (playerRoom + 1) * BOXES; b++) {
+                if (!open[b] && k-- == 0) return b + 1;
+            }
+            return 0;
+        }
+
+        @Override
+        public List<Item> getInventory() {
+            return inventory;
+        }
+
+        @Override
+        public int countItems(Class<? extends Item> type) {
+            int count = 0;
+            for (int i = 0; i < heldCount; i++) {
+                if (items.get(held[i]).getClass() == type) count++;
+            }
+            return count;
+        }
+
+        @Override
+        public Item getFirstItem(Class<? extends Item> type) {
+            for (int i = 0; i < heldCount; i++) {
+                Item item = items.get(held[i]);
+                if (item.getClass() == type) return item;
+            }
+            return null;
+        }
+
+        @Override
+        public boolean isSomethingNearby() {
+            return huntersIn[playerRoom] > 0;
+        }
+    }
+}
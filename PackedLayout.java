@@ -0,0 +1,240 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The fixed part of a mansion for packed games (see PackedGame): the rooms, their exits and
+ * features, as flat arrays indexed by room index. Box b (from 0) is box ID b + 1 and stands in
+ * room b / Room.BOXES_PER_ROOM, as in a generated GameMap, so the boxes need no table at all.
+ * A layout never changes, so any number of packed games can share one; only their box, player
+ * and Box Girl state is per game.
+ */
+public final class PackedLayout {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /** Feature flag of the room with the hidden exit. */
+    static final byte EXIT = 1;
+    /** Feature flag of the rooms where the exorcism works (Miss Mary's and the corpse's). */
+    static final byte EXORCISM = 2;
+
+    private final String[] names;
+    private final String[] features;
+    private final Feature[] featureKinds;
+    private final byte[] featureFlags;
+    private final int[] neighbors;
+    private final int[] exitStart;
+    private final byte[] exitDirections;
+    private final int[] exitRooms;
+    private final int basement;
+    private final int firstHall;
+    private final int secondHall;
+    private final AtomicReferenceArray<int[]> paths;
+
+    private PackedLayout(GameMap map) {
+        List<Room> rooms = map.getRooms();
+        int count = rooms.size();
+        this.names = new String[count];
+        this.features = new String[count];
+        this.featureKinds = new Feature[count];
+        this.featureFlags = new byte[count];
+        this.neighbors = new int[count * Direction.COUNT];
+        this.exitStart = new int[count + 1];
+        Arrays.fill(neighbors, -1);
+        int exits = 0;
+        for (int r = 0; r < count; r++) {
+            Room room = rooms.get(r);
+            names[r] = room.getName();
+            features[r] = room.getFeatureItem();
+            Feature feature = room.getFeature();
+            featureKinds[r] = feature;
+            if (feature != null) {
+                if (feature.isExit()) featureFlags[r] |= EXIT;
+                if (feature.allowsExorcism()) featureFlags[r] |= EXORCISM;
+            }
+            for (Direction direction : DIRECTIONS) {
+                Room neighbor = room.getNeighbor(direction);
+                if (neighbor != null) {
+                    neighbors[r * Direction.COUNT + direction.ordinal()] = neighbor.getIndex();
+                }
+            }
+            exitStart[r] = exits;
+            exits += room.getExitCount();
+        }
+        exitStart[count] = exits;
+        // Exits in direction order, like Room.getExit, so random exits are drawn alike.
+        this.exitDirections = new byte[exits];
+        this.exitRooms = new int[exits];
+        for (int r = 0; r < count; r++) {
+            Room room = rooms.get(r);
+            for (int i = 0; i < room.getExitCount(); i++) {
+                exitDirections[exitStart[r] + i] = (byte) room.getExit(i).ordinal();
+                exitRooms[exitStart[r] + i] = room.getAdjacentRoom(i).getIndex();
+            }
+        }
+        this.basement = indexOf(map, "Basement");
+        this.firstHall = indexOf(map, "First Floor Hall");
+        this.secondHall = indexOf(map, "Second Floor Hall");
+        this.paths = new AtomicReferenceArray<>(count);
+    }
+
+    /**
+     * Packs the rooms and connections of a generated map. The map itself is not kept.
+     * @param map A generated map; it must contain the Basement and both halls.
+     * @return The layout.
+     */
+    public static PackedLayout of(GameMap map) {
+        return new PackedLayout(map);
+    }
+
+    private static int indexOf(GameMap map, String name) {
+        Room room = map.getRoom(name);
+        if (room == null) {
+            throw new IllegalArgumentException("The map has no " + name + ".");
+        }
+        return room.getIndex();
+    }
+
+    /**
+     * @return The number of rooms.
+     */
+    public int getRoomCount() {
+        return names.length;
+    }
+
+    /**
+     * @return The number of boxes, Room.BOXES_PER_ROOM per room.
+     */
+    public int getBoxCount() {
+        return names.length * Room.BOXES_PER_ROOM;
+    }
+
+    /**
+     * @param room A room index.
+     * @return The room's name.
+     */
+    public String getName(int room) {
+        return names[room];
+    }
+
+    /**
+     * @param room A room index.
+     * @return The room's special feature, or null.
+     */
+    public String getFeature(int room) {
+        return features[room];
+    }
+
+    /**
+     * @param room A room index.
+     * @return What the room's feature does, or null.
+     */
+    public Feature getFeatureKind(int room) {
+        return featureKinds[room];
+    }
+
+    /**
+     * @param room A room index.
+     * @return EXIT and EXORCISM flags of the room's feature.
+     */
+    byte getFeatureFlags(int room) {
+        return featureFlags[room];
+    }
+
+    /**
+     * @param room A room index.
+     * @param direction A direction.
+     * @return The index of the room in that direction, or -1 if there is no exit.
+     */
+    public int getNeighbor(int room, Direction direction) {
+        return neighbors[room * Direction.COUNT + direction.ordinal()];
+    }
+
+    /**
+     * @param room A room index.
+     * @return The number of exits of the room.
+     */
+    public int getExitCount(int room) {
+        return exitStart[room + 1] - exitStart[room];
+    }
+
+    /**
+     * @param room A room index.
+     * @param i The exit, from 0 to getExitCount(room) - 1, in direction order.
+     * @return The direction of that exit.
+     */
+    public Direction getExit(int room, int i) {
+        return DIRECTIONS[exitDirections[exitStart[room] + i]];
+    }
+
+    /**
+     * @param room A room index.
+     * @param i The exit, from 0 to getExitCount(room) - 1, in direction order.
+     * @return The index of the room that exit leads to.
+     */
+    public int getExitRoom(int room, int i) {
+        return exitRooms[exitStart[room] + i];
+    }
+
+    /**
+     * @return The index of the Basement, where the sister is released.
+     */
+    int getBasement() {
+        return basement;
+    }
+
+    /**
+     * @return The index of the First Floor Hall, where the player starts.
+     */
+    int getFirstHall() {
+        return firstHall;
+    }
+
+    /**
+     * @return The index of the Second Floor Hall, where the Box Girl starts.
+     */
+    int getSecondHall() {
+        return secondHall;
+    }
+
+    /**
+     * Returns the next room on a shortest path, like PathFinder.nextStep. The BFS tree towards
+     * each target is built on first use and kept for the life of the layout; games on other
+     * threads may race to build the same tree, which is harmless since both come out equal.
+     * @param from The room to move from.
+     * @param target The room to move towards.
+     * @return The adjacent room to step into, or -1 if already there or the target is unreachable.
+     */
+    int nextStep(int from, int target) {
+        int[] tree = paths.get(target);
+        if (tree == null) {
+            tree = buildTree(target);
+            paths.set(target, tree);
+        }
+        return tree[from];
+    }
+
+    /**
+     * Runs a breadth-first search outwards from the target, as PathFinder.buildTree does.
+     * @return For each room index, the index of the next room towards the target, or -1.
+     */
+    private int[] buildTree(int target) {
+        int[] next = new int[names.length];
+        int[] queue = new int[names.length];
+        Arrays.fill(next, -1);
+        int head = 0, tail = 0;
+        queue[tail++] = target;
+        next[target] = target;
+        while (head < tail) {
+            int room = queue[head++];
+            for (int e = exitStart[room]; e < exitStart[room + 1]; e++) {
+                int neighbor = exitRooms[e];
+                if (next[neighbor] == -1) {
+                    next[neighbor] = room;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        next[target] = -1;
+        return next;
+    }
+}
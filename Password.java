@@ -2,6 +2,8 @@
  * Represents a password item that can be used to escape the mansion.
  */
 public class Password extends Item {
+    /** The number of passwords that open the Hidden Exit. */
+    public static final int REQUIRED = 3;
 
     /**
      * Constructs a new Password item.
@@ -20,11 +22,12 @@ public class Password extends Item {
     @Override
     public String use(Player player, Game game) {
         int passCount = player.countItemOfType(Password.class);
-        if (passCount < 3) {
-            return "You currently have only " + passCount + " password(s). You need 3.";
+        if (passCount < REQUIRED) {
+            return "You currently have only " + passCount + " password(s). You need " + REQUIRED + ".";
         }
 
-        if (player.getCurrentRoom().getFeatureItem().contains("Hidden Exit")) {
+        Feature feature = player.getCurrentRoom().getFeature();
+        if (feature != null && feature.isExit()) {
             game.endGame(true, "\nYou entered the correct passwords, and the hidden exit creaked open! You escaped the mansion and achieved [ESCAPE VICTORY].");
             return "Password match successful! Game Over.";
         } else {
@@ -0,0 +1,99 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shortest paths between rooms of one map, used by the hunting Box Girl.
+ * Instead of an all-pairs table (quadratic in the number of rooms), it keeps one BFS tree per
+ * target room: for every room, the index of the next room on a shortest path to the target.
+ * Trees are built on first use and kept in a least-recently-used cache whose size is bounded by
+ * a total number of table entries, so memory stays linear on very large maps. All trees are
+ * dropped when the map's connections change (e.g. a door gets locked).
+ */
+public class PathFinder {
+    /** Upper bound on the total number of next-hop entries cached (4 bytes each). */
+    private static final int ENTRY_BUDGET = 8_000_000;
+
+    private GameMap map;
+    private int version;
+    private Map<Room, int[]> trees;
+    private int[] queue = new int[0];
+
+    /**
+     * Constructs a path finder for a map.
+     * @param map The map whose rooms are searched.
+     */
+    public PathFinder(GameMap map) {
+        this.map = map;
+        this.version = map.getConnectionVersion();
+        int rooms = Math.max(1, map.getRooms().size());
+        int maxTrees = Math.max(1, Math.min(rooms, ENTRY_BUDGET / rooms));
+        this.trees = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Room, int[]> eldest) {
+                return size() > maxTrees;
+            }
+        };
+    }
+
+    /**
+     * Returns the next room on a shortest path. After the tree for the target is cached,
+     * this is a single array lookup.
+     * @param from The room to move from.
+     * @param target The room to move towards.
+     * @return The adjacent room to step into, or null if already there or the target is unreachable.
+     */
+    public Room nextStep(Room from, Room target) {
+        int next = treeFor(target)[from.getIndex()];
+        return next < 0 ? null : map.getRooms().get(next);
+    }
+
+    /**
+     * Returns the BFS tree towards a target, building it if it is not cached.
+     */
+    private int[] treeFor(Room target) {
+        if (version != map.getConnectionVersion()) {
+            trees.clear();
+            version = map.getConnectionVersion();
+        }
+        int[] tree = trees.get(target);
+        if (tree == null) {
+            tree = buildTree(target);
+            trees.put(target, tree);
+        }
+        return tree;
+    }
+
+    /**
+     * Runs a breadth-first search outwards from the target. Because a room reached from room r
+     * is one step further away than r, r is its next hop towards the target.
+     * Connections are followed backwards, i.e. this assumes doors work both ways, as generated.
+     * @return For each room index, the index of the next room towards the target, or -1.
+     */
+    private int[] buildTree(Room target) {
+        List<Room> rooms = map.getRooms();
+        int[] next = new int[rooms.size()];
+        Arrays.fill(next, -1);
+        if (queue.length < rooms.size()) {
+            queue = new int[rooms.size()];
+        }
+
+        int head = 0, tail = 0;
+        queue[tail++] = target.getIndex();
+        next[target.getIndex()] = target.getIndex();
+        while (head < tail) {
+            Room room = rooms.get(queue[head++]);
+            for (int i = 0; i < room.getExitCount(); i++) {
+                int neighbor = room.getAdjacentRoom(i).getIndex();
+                if (next[neighbor] == -1) {
+                    next[neighbor] = room.getIndex();
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        // The target itself has nowhere left to go.
+        next[target.getIndex()] = -1;
+        return next;
+    }
+}
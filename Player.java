@@ -1,12 +1,23 @@
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.ArrayList;
 
 /**
  * Represents the player navigating through the mansion.
+ * The inventory holds item IDs of the map's ItemCatalogue in the order they were obtained.
+ * Next to it the held IDs are listed per item kind and per case-folded name (see
+ * ItemCatalogue.nameSlot), also in the order they were obtained, so lookups by type and by
+ * name take constant time.
  */
 public class Player {
     private Room currentRoom;
-    private List<Item> inventory;
+    private int[] inventory = new int[8];
+    private int inventorySize = 0;
+    private int[] kindCounts = new int[ItemCatalogue.KINDS];
+    private int[][] idsByKind = new int[ItemCatalogue.KINDS][];
+    private int[] nameCounts;
+    private int[][] idsByName;
+    private List<Item> inventoryView;
     private Game game;
 
     /**
@@ -16,8 +27,26 @@ public class Player {
      */
     public Player(Room startRoom, Game game) {
         this.currentRoom = startRoom;
-        this.inventory = new ArrayList<>();
+        this.inventoryView = new AbstractList<Item>() {
+            @Override
+            public Item get(int index) {
+                return catalogue().get(getItemId(index));
+            }
+
+            @Override
+            public int size() {
+                return inventorySize;
+            }
+        };
         this.game = game;
+        toggleStateKey(ZobristKeys.playerRoom(startRoom));
+    }
+
+    /**
+     * @return The items the inventory's IDs refer to.
+     */
+    private ItemCatalogue catalogue() {
+        return currentRoom.getMap().getCatalogue();
     }
 
     /**
@@ -25,10 +54,89 @@ public class Player {
      * @param item The item to be added.
      */
     public void addItem(Item item) {
-        this.inventory.add(item);
-        item.setObtained(true);
-        System.out.println("Result: Obtained: " + item.getName());
-        System.out.println(item.getDescription());
+        addItem(catalogue().idOf(item));
+    }
+
+    /**
+     * Adds an item to the player's inventory by ID.
+     * @param id The ID of the item in the map's catalogue.
+     */
+    void addItem(int id) {
+        restoreItem(id);
+        if (game.isQuiet()) return;
+        Item item = catalogue().get(id);
+        game.getOut().println("Result: Obtained: " + item.getName());
+        game.getOut().println(item.getDescription());
+    }
+
+    /**
+     * Adds an item to the inventory without announcing it (used when loading a saved game).
+     * @param id The ID of the item in the map's catalogue.
+     */
+    void restoreItem(int id) {
+        if (inventorySize == inventory.length) {
+            inventory = Arrays.copyOf(inventory, inventorySize * 2);
+        }
+        inventory[inventorySize++] = id;
+        if (nameCounts == null) {
+            nameCounts = new int[catalogue().getNameSlotCount()];
+            idsByName = new int[nameCounts.length][];
+        }
+        int slot = catalogue().nameSlot(id);
+        toggleStateKey(ZobristKeys.held(catalogue().nameHash(id), nameCounts[slot]));
+        append(idsByKind, kindCounts, catalogue().kind(id), id);
+        append(idsByName, nameCounts, slot, id);
+    }
+
+    /**
+     * Empties the inventory without announcing it (used when rolling a game back to a saved state).
+     */
+    void clearInventory() {
+        for (int i = inventorySize - 1; i >= 0; i--) {
+            int slot = catalogue().nameSlot(inventory[i]);
+            toggleStateKey(ZobristKeys.held(catalogue().nameHash(inventory[i]), --nameCounts[slot]));
+        }
+        inventorySize = 0;
+        Arrays.fill(kindCounts, 0);
+        if (nameCounts != null) {
+            Arrays.fill(nameCounts, 0);
+        }
+    }
+
+    /**
+     * Appends an ID to one of the per-kind or per-name lists, growing it if needed.
+     */
+    private static void append(int[][] lists, int[] sizes, int slot, int id) {
+        int[] list = lists[slot];
+        if (list == null) {
+            list = lists[slot] = new int[2];
+        } else if (sizes[slot] == list.length) {
+            list = lists[slot] = Arrays.copyOf(list, list.length * 2);
+        }
+        list[sizes[slot]++] = id;
+    }
+
+    /**
+     * Removes the earliest copy of an ID from one of the per-kind or per-name lists.
+     */
+    private static void remove(int[][] lists, int[] sizes, int slot, int id) {
+        int[] list = lists[slot];
+        for (int i = 0; i < sizes[slot]; i++) {
+            if (list[i] == id) {
+                System.arraycopy(list, i + 1, list, i, sizes[slot] - i - 1);
+                sizes[slot]--;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Puts the player into a room without announcing it (used when rolling a game back to a saved state).
+     * @param room The room.
+     */
+    void restoreRoom(Room room) {
+        toggleStateKey(ZobristKeys.playerRoom(currentRoom) ^ ZobristKeys.playerRoom(room));
+        this.currentRoom = room;
     }
 
     /**
@@ -36,25 +144,79 @@ public class Player {
      * @param newRoom The room the player moves to.
      */
     public void move(Room newRoom) {
+        toggleStateKey(ZobristKeys.playerRoom(currentRoom) ^ ZobristKeys.playerRoom(newRoom));
         this.currentRoom = newRoom;
-        System.out.println("\n Moved to the " + newRoom.getName());
+        if (!game.isQuiet()) {
+            game.getOut().println("\n Moved to the " + newRoom.getName());
+        }
     }
 
     /**
-     * Counts the number of items of a specific class type in the inventory.
+     * Counts the number of items of a specific class type in the inventory, in constant time
+     * for the item types of the catalogue.
      * @param type The Class object representing the item type (e.g., BoxGirlWeakness.class).
-     * @return The count of items of that type.
+     * @return The count of items of exactly that type.
      */
     public int countItemOfType(Class<? extends Item> type) {
+        byte kind = ItemCatalogue.kindOf(type);
+        if (kind != ItemCatalogue.OTHER) {
+            return kindCounts[kind];
+        }
         int count = 0;
-        for (Item item : inventory) {
-            if (type.isInstance(item)) {
-                count++;
-            }
+        for (int i = 0; i < inventorySize; i++) {
+            if (catalogue().get(inventory[i]).getClass() == type) count++;
         }
         return count;
     }
 
+    /**
+     * @param type The Class object representing the item type.
+     * @return The earliest obtained item of exactly that type still held, or null if there is none.
+     */
+    public Item getFirstItemOfType(Class<? extends Item> type) {
+        byte kind = ItemCatalogue.kindOf(type);
+        if (kind != ItemCatalogue.OTHER) {
+            return kindCounts[kind] == 0 ? null : catalogue().get(idsByKind[kind][0]);
+        }
+        for (int i = 0; i < inventorySize; i++) {
+            Item item = catalogue().get(inventory[i]);
+            if (item.getClass() == type) return item;
+        }
+        return null;
+    }
+
+    /**
+     * Finds an item by name (case-insensitive) through the name index.
+     * @param name The name of the item to find.
+     * @return The earliest obtained item with that name, or null if not found.
+     */
+    public Item getItemByName(String name) {
+        int slot = nameCounts == null ? -1 : catalogue().nameSlot(name);
+        return slot < 0 || nameCounts[slot] == 0 ? null : catalogue().get(idsByName[slot][0]);
+    }
+
+    /**
+     * @param item An item.
+     * @return True if the item is currently in the player's inventory.
+     */
+    public boolean hasItem(Item item) {
+        for (int i = 0; i < inventorySize; i++) {
+            if (catalogue().get(inventory[i]) == item) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param index A position in the inventory, from 0 to getInventory().size() - 1.
+     * @return The ID of the item there.
+     */
+    int getItemId(int index) {
+        if (index >= inventorySize) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return inventory[index];
+    }
+
     /**
      * @return The player's current room.
      */
@@ -63,10 +225,11 @@ public class Player {
     }
 
     /**
-     * @return The player's current inventory list.
+     * Items must be added and removed through addItem and removeItem.
+     * @return A read-only view of the player's current inventory, in the order the items were obtained.
      */
     public List<Item> getInventory() {
-        return inventory;
+        return inventoryView;
     }
 
     /**
@@ -75,11 +238,38 @@ public class Player {
      * @return True if removed, false if not found.
      */
     public boolean removeItem(Item item) {
-        boolean removed = this.inventory.remove(item);
-        if (removed) {
-            item.setObtained(false);
+        return item != null && removeItem(catalogue().idOf(item));
+    }
+
+    /**
+     * Removes the earliest obtained copy of an item from the player's inventory.
+     * @param id The ID of the item in the map's catalogue.
+     * @return True if removed, false if not found.
+     */
+    boolean removeItem(int id) {
+        for (int i = 0; i < inventorySize; i++) {
+            if (inventory[i] == id) {
+                System.arraycopy(inventory, i + 1, inventory, i, inventorySize - i - 1);
+                inventorySize--;
+                int slot = catalogue().nameSlot(id);
+                remove(idsByKind, kindCounts, catalogue().kind(id), id);
+                remove(idsByName, nameCounts, slot, id);
+                toggleStateKey(ZobristKeys.held(catalogue().nameHash(id), nameCounts[slot]));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * XORs a change of the player's state into the map's state key.
+     * @param key The key of the facts that changed.
+     */
+    private void toggleStateKey(long key) {
+        GameMap map = currentRoom.getMap();
+        if (map != null) {
+            map.toggleStateKey(key);
         }
-        return removed;
     }
 
     /**
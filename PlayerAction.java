@@ -0,0 +1,93 @@
+/**
+ * A typed player action returned by a PlayerStrategy, carried out by the game without any
+ * command parsing. Move actions are shared constants, so walking bots do not allocate.
+ */
+public final class PlayerAction {
+
+    /**
+     * The kinds of action a player can take in a turn.
+     */
+    public enum Kind { MOVE, OPEN_BOX, USE_ITEM, PUT_ITEM }
+
+    private static final PlayerAction[] MOVES = new PlayerAction[Direction.COUNT];
+    static {
+        for (Direction direction : Direction.values()) {
+            MOVES[direction.ordinal()] = new PlayerAction(Kind.MOVE, direction, 0, null);
+        }
+    }
+
+    private final Kind kind;
+    private final Direction direction;
+    private final int boxId;
+    private final Item item;
+
+    private PlayerAction(Kind kind, Direction direction, int boxId, Item item) {
+        this.kind = kind;
+        this.direction = direction;
+        this.boxId = boxId;
+        this.item = item;
+    }
+
+    /**
+     * @param direction The direction to walk in.
+     * @return The action of moving through the exit in that direction.
+     */
+    public static PlayerAction move(Direction direction) {
+        return MOVES[direction.ordinal()];
+    }
+
+    /**
+     * @param boxId The ID of an unopened box in the current room.
+     * @return The action of opening that box.
+     */
+    public static PlayerAction openBox(int boxId) {
+        return new PlayerAction(Kind.OPEN_BOX, null, boxId, null);
+    }
+
+    /**
+     * @param item An item from the player's inventory.
+     * @return The action of using that item.
+     */
+    public static PlayerAction useItem(Item item) {
+        return new PlayerAction(Kind.USE_ITEM, null, 0, item);
+    }
+
+    /**
+     * @param boxId The ID of an opened box in the current room.
+     * @param item An item from the player's inventory.
+     * @return The action of putting the item into that box.
+     */
+    public static PlayerAction putItem(int boxId, Item item) {
+        return new PlayerAction(Kind.PUT_ITEM, null, boxId, item);
+    }
+
+    /**
+     * @return The kind of action.
+     */
+    public Kind getKind() { return kind; }
+
+    /**
+     * @return The direction of a move, otherwise null.
+     */
+    public Direction getDirection() { return direction; }
+
+    /**
+     * @return The box of an open or put action, otherwise 0.
+     */
+    public int getBoxId() { return boxId; }
+
+    /**
+     * @return The item of a use or put action, otherwise null.
+     */
+    public Item getItem() { return item; }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case MOVE: return "move " + direction;
+            case OPEN_BOX: return "open box " + boxId;
+            case USE_ITEM: return "use item " + item.getName();
+            default: return "put item " + item.getName() + " into box " + boxId;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * Decides the player's actions from what the player can see, as typed actions.
+ * A game driven by a strategy (Game.setStrategy) skips all prompts and command parsing.
+ */
+public interface PlayerStrategy {
+
+    /**
+     * Chooses the action for this turn.
+     * @param view The player's read-only view of the game.
+     * @return The action to take.
+     */
+    PlayerAction nextAction(PlayerView view);
+
+    /**
+     * Returns the action that wins the game right away, if the player stands in the right room
+     * with enough passwords or weaknesses.
+     * @param view The player's view of the game.
+     * @return The winning action, or null if there is none this turn.
+     */
+    static PlayerAction winningAction(PlayerView view) {
+        Feature feature = view.getRoomFeatureKind();
+        if (feature == null) return null;
+
+        if (feature.isExit() && view.countItems(Password.class) >= 3) {
+            return PlayerAction.useItem(view.getFirstItem(Password.class));
+        }
+        if (feature.allowsExorcism() && view.countItems(BoxGirlWeakness.class) >= 2) {
+            return PlayerAction.useItem(view.getFirstItem(BoxGirlWeakness.class));
+        }
+        return null;
+    }
+}
@@ -0,0 +1,26 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for one player action, from the moment the action was read until it was handled.
+ * Time spent waiting for follow-up input (directions, box IDs, item names) is excluded: a
+ * console turn that reads such input is reported as one event per part between the reads,
+ * numbered from 0, so no event contains the player's think time.
+ */
+@Name("boxgirl.PlayerTurn")
+@Label("Player Turn")
+@Category("Box Girl")
+@Description("The player's action in one turn")
+public class PlayerTurnEvent extends Event {
+    @Label("Action")
+    String action;
+
+    @Label("Turn")
+    int turn;
+
+    @Label("Part")
+    int part;
+}
@@ -0,0 +1,107 @@
+import java.util.List;
+
+/**
+ * What the player can see of a game: the current room with its exits and boxes, the
+ * inventory, and whether something lurks nearby. Strategies read the game only through
+ * this view, which offers no way to change it. One view is reused for a whole game.
+ * Both engines offer it: GameView over the object graph, PackedGame over its arrays.
+ */
+public interface PlayerView {
+    /**
+     * @return The number of turns played so far.
+     */
+    int getTurnCount();
+
+    /**
+     * @return The name of the current room.
+     */
+    String getRoomName();
+
+    /**
+     * @return The special feature of the current room (e.g. the hidden exit), or null.
+     */
+    String getRoomFeature();
+
+    /**
+     * @return What the special feature of the current room does, or null if there is none.
+     */
+    Feature getRoomFeatureKind();
+
+    /**
+     * @return A number identifying the current room, from 0 to getRoomCount() - 1.
+     */
+    int getRoomIndex();
+
+    /**
+     * @return The number of rooms in the mansion.
+     */
+    int getRoomCount();
+
+    /**
+     * @return The number of exits of the current room.
+     */
+    int getExitCount();
+
+    /**
+     * @param i The exit, from 0 to getExitCount() - 1.
+     * @return The direction of that exit.
+     */
+    Direction getExit(int i);
+
+    /**
+     * @param i The exit, from 0 to getExitCount() - 1.
+     * @return The index of the room that exit leads to.
+     */
+    int getExitRoomIndex(int i);
+
+    /**
+     * @return The number of boxes in the current room, opened or not.
+     */
+    int getBoxCount();
+
+    /**
+     * @param i The box, from 0 to getBoxCount() - 1.
+     * @return The ID of that box.
+     */
+    int getBoxId(int i);
+
+    /**
+     * @param i The box, from 0 to getBoxCount() - 1.
+     * @return True if that box has been opened.
+     */
+    boolean isBoxOpen(int i);
+
+    /**
+     * @return The number of unopened boxes in the current room.
+     */
+    int getUnopenedBoxCount();
+
+    /**
+     * @param k Which unopened box, from 0 to getUnopenedBoxCount() - 1.
+     * @return The ID of the k-th unopened box in the current room, or 0 if there is none.
+     */
+    int getUnopenedBoxId(int k);
+
+    /**
+     * @return The player's items. Must not be modified.
+     */
+    List<Item> getInventory();
+
+    /**
+     * @param type The item type.
+     * @return The number of items of exactly that type in the inventory.
+     */
+    int countItems(Class<? extends Item> type);
+
+    /**
+     * @param type The item type.
+     * @return The first item of that type in the inventory, or null.
+     */
+    Item getFirstItem(Class<? extends Item> type);
+
+    /**
+     * @return True if a Box Girl is in the current room, which the player senses
+     *         ("something might be hiding nearby").
+     */
+    boolean isSomethingNearby();
+}
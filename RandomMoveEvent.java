@@ -0,0 +1,23 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for BoxGirl.randomMove, including all of its retries.
+ */
+@Name("boxgirl.RandomMove")
+@Label("Box Girl Move")
+@Category("Box Girl")
+@Description("A Box Girl moving and looking for a box to hide in")
+public class RandomMoveEvent extends Event {
+    @Label("Attempts")
+    int attempts;
+
+    @Label("Hidden")
+    boolean hidden;
+
+    @Label("Hunting")
+    boolean hunting;
+}
@@ -0,0 +1,37 @@
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A baseline bot that picks uniformly among the actions available this turn: walking
+ * through any exit, opening any unopened box or using any item it carries.
+ */
+public class RandomStrategy implements PlayerStrategy {
+    private SplittableRandom random;
+
+    /**
+     * Constructs a random bot.
+     * @param random The generator for the bot's decisions.
+     */
+    public RandomStrategy(SplittableRandom random) {
+        this.random = random;
+    }
+
+    @Override
+    public PlayerAction nextAction(PlayerView view) {
+        int exits = view.getExitCount();
+        int boxes = view.getUnopenedBoxCount();
+        List<Item> inventory = view.getInventory();
+        int total = exits + boxes + inventory.size();
+        if (total == 0) return null;
+
+        int k = random.nextInt(total);
+        if (k < exits) {
+            return PlayerAction.move(view.getExit(k));
+        }
+        k -= exits;
+        if (k < boxes) {
+            return PlayerAction.openBox(view.getUnopenedBoxId(k));
+        }
+        return PlayerAction.useItem(inventory.get(k - boxes));
+    }
+}
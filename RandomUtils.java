@@ -0,0 +1,38 @@
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Helpers for drawing from a game's SplittableRandom, which java.util.Collections cannot use directly.
+ */
+public final class RandomUtils {
+
+    private RandomUtils() {}
+
+    /**
+     * Shuffles a list in place (Fisher-Yates), like Collections.shuffle but driven by the given generator.
+     * @param list The list to shuffle.
+     * @param random The generator to draw from.
+     */
+    public static <T> void shuffle(List<T> list, SplittableRandom random) {
+        for (int i = list.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            list.set(j, list.set(i, list.get(j)));
+        }
+    }
+
+    /**
+     * Shuffles the first size values of an int array in place, drawing exactly like shuffle on
+     * a list of that size.
+     * @param values The array to shuffle.
+     * @param size The number of values to shuffle, from the start of the array.
+     * @param random The generator to draw from.
+     */
+    public static void shuffle(int[] values, int size, SplittableRandom random) {
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+}
@@ -1,87 +1,175 @@
+import java.io.PrintStream;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Map;
-import java.util.HashMap;
-import java.util.Collections;
+import java.util.SplittableRandom;
 
 /**
  * Represents a room in the mansion, containing boxes and connections to other rooms.
  */
 public class Room {
+    /** At most 64, since the hideable boxes are tracked in a long bitset. */
+    public static final int BOXES_PER_ROOM = 3;
+
     private String name;
-    private int x, y;
+    private int floor, x, y;
     private List<Box> boxes;
-    private Map<String, Room> connections;
+    private Room[] neighbors = new Room[Direction.COUNT];
+    private Direction[] exits = new Direction[0];
+    private Room[] adjacentRooms = new Room[0];
     private String featureItem;
+    private Feature feature;
+    private GameMap map;
+    private long hideableMask;
+    private int hideableSlot = -1;
+    private int index = -1;
 
     /**
      * Constructs a new Room.
      * @param name The name of the room.
+     * @param floor The floor of the room.
      * @param x The X-coordinate on the map grid.
      * @param y The Y-coordinate on the map grid.
-     * @param featureItem The defining feature or special item location of the room.
+     * @param featureItem The defining feature or special item location of the room; its kind
+     *                    is looked up in the game content (see GameContent).
+     * @param map The map the room belongs to; it allocates the box IDs and indexes the boxes.
      */
-    public Room(String name, int x, int y, String featureItem) {
+    public Room(String name, int floor, int x, int y, String featureItem, GameMap map) {
         this.name = name;
+        this.floor = floor;
         this.x = x;
         this.y = y;
         this.featureItem = featureItem;
+        this.feature = GameContent.get().featureOf(featureItem);
+        this.map = map;
         this.boxes = new ArrayList<>();
-        for (int i = 0; i < 3; i++) {
-            this.boxes.add(new Box());
+        for (int i = 0; i < BOXES_PER_ROOM; i++) {
+            this.boxes.add(new Box(map.nextBoxId(), this, i));
         }
-        this.connections = new HashMap<>();
+        // Every new box is closed and unoccupied.
+        this.hideableMask = (1L << BOXES_PER_ROOM) - 1;
     }
 
     /**
-     * Prints the current state and available exits of the room to the console.
+     * Prints the current state and available exits of the room.
+     * @param out The stream to print to.
      */
-    public void describe() {
-        System.out.println("\nCurrent Room: " + name);
-        System.out.println("Room Feature: " + featureItem);
+    public void describe(PrintStream out) {
+        out.println("\nCurrent Room: " + name);
+        out.println("Room Feature: " + featureItem);
 
-        System.out.print("Room Exits (Direction -> Room Name): ");
-        if (connections.isEmpty()) {
-            System.out.println("None. You are trapped!");
+        out.print("Room Exits (Direction -> Room Name): ");
+        if (exits.length == 0) {
+            out.println("None. You are trapped!");
         } else {
-            List<String> exits = new ArrayList<>();
-            for(Map.Entry<String, Room> entry : connections.entrySet()) {
-                exits.add(entry.getKey() + " -> " + entry.getValue().getName());
+            List<String> exitNames = new ArrayList<>();
+            for (Direction direction : exits) {
+                exitNames.add(direction + " -> " + getNeighbor(direction).getName());
             }
-            // Use String.join without FQN
-            System.out.println(String.join(" | ", exits));
+            out.println(String.join(" | ", exitNames));
         }
 
-        System.out.print("Room Boxes: ");
+        out.print("Room Boxes: ");
         int openCount = 0;
         for (Box box : boxes) {
             if (!box.isOpen()) {
-                System.out.print("[Box ID: " + box.getId() + "] ");
+                out.print("[Box ID: " + box.getId() + "] ");
             } else {
                 openCount++;
             }
         }
-        System.out.println("(" + openCount + " boxes are already open)");
+        out.println("(" + openCount + " boxes are already open)");
     }
 
     /**
      * Randomly shuffles the content of all boxes in the room.
      * Optionally resets the 'opened' status of boxes.
      * @param resetOpen If true, closes previously opened boxes (unless they contain "Empty Box").
+     * @param random The generator used for the shuffle.
      */
-    public void scrambleBoxes(boolean resetOpen) {
-        List<Item> contents = new ArrayList<>();
-        for (Box box : boxes) {
-            contents.add(box.getContent());
-            if (resetOpen) {
-                box.close();
+    public void scrambleBoxes(boolean resetOpen, SplittableRandom random) {
+        if (resetOpen) {
+            for (int i = 0; i < boxes.size(); i++) {
+                boxes.get(i).close();
             }
         }
-        Collections.shuffle(contents);
 
-        for (int i = 0; i < boxes.size(); i++) {
-            boxes.get(i).setContent(contents.get(i));
+        // Fisher-Yates directly over the box contents, so no temporary list is needed.
+        for (int i = boxes.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = boxes.get(i).getContentId();
+            boxes.get(i).setContentId(boxes.get(j).getContentId());
+            boxes.get(j).setContentId(swap);
+        }
+    }
+
+    /**
+     * Updates the bitset of hideable boxes after a box was opened, closed, entered or left,
+     * and tells the map whether this room still has somewhere to hide.
+     * @param box The box whose state changed.
+     */
+    void updateHideable(Box box) {
+        long bit = 1L << box.getSlot();
+        long mask = box.isHideable() ? hideableMask | bit : hideableMask & ~bit;
+        if (mask != hideableMask) {
+            hideableMask = mask;
+            map.updateHideableRoom(this);
+        }
+    }
+
+    /**
+     * @return True if at least one box in the room is closed and unoccupied.
+     */
+    public boolean hasHideableBox() {
+        return hideableMask != 0;
+    }
+
+    /**
+     * Picks a uniformly random hideable box straight from the bitset.
+     * @param random The generator to draw from.
+     * @return A closed, unoccupied box, or null if there is none.
+     */
+    public Box getRandomHideableBox(SplittableRandom random) {
+        if (hideableMask == 0) return null;
+        long mask = hideableMask;
+        for (int k = random.nextInt(Long.bitCount(mask)); k > 0; k--) {
+            mask &= mask - 1;
         }
+        return boxes.get(Long.numberOfTrailingZeros(mask));
+    }
+
+    /**
+     * @return This room's position in the map's hideable-room index, or -1 if it is not in it.
+     */
+    int getHideableSlot() {
+        return hideableSlot;
+    }
+
+    /**
+     * @param hideableSlot This room's new position in the map's hideable-room index, or -1.
+     */
+    void setHideableSlot(int hideableSlot) {
+        this.hideableSlot = hideableSlot;
+    }
+
+    /**
+     * @return The position of this room in its map's room list, used to index per-room tables.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @param index The position of this room in its map's room list.
+     */
+    void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * @return The map this room belongs to.
+     */
+    public GameMap getMap() {
+        return map;
     }
 
     /**
@@ -89,8 +177,24 @@ public class Room {
      * @param direction The direction of the connection (e.g., NORTH, UP).
      * @param room The adjacent Room object.
      */
-    public void addConnection(String direction, Room room) {
-        connections.put(direction, room);
+    public void addConnection(Direction direction, Room room) {
+        neighbors[direction.ordinal()] = room;
+        map.connectionsChanged();
+
+        // Rebuild the compact exit lists; connections are only added while the map is generated.
+        int count = 0;
+        for (Room neighbor : neighbors) {
+            if (neighbor != null) count++;
+        }
+        exits = new Direction[count];
+        adjacentRooms = new Room[count];
+        count = 0;
+        for (Direction d : Direction.values()) {
+            if (neighbors[d.ordinal()] != null) {
+                exits[count] = d;
+                adjacentRooms[count++] = neighbors[d.ordinal()];
+            }
+        }
     }
 
     /**
@@ -98,22 +202,39 @@ public class Room {
      * @param direction The direction to check.
      * @return The connected Room, or null if no connection exists.
      */
-    public Room getNeighbor(String direction) {
-        return connections.get(direction);
+    public Room getNeighbor(Direction direction) {
+        return neighbors[direction.ordinal()];
     }
 
     /**
-     * @return The list of boxes in the room.
+     * @return The number of exits (and adjacent rooms) of this room.
      */
-    public List<Box> getBoxes() {
-        return boxes;
+    public int getExitCount() {
+        return exits.length;
+    }
+
+    /**
+     * @param index An exit index between 0 and getExitCount() - 1.
+     * @return The direction of that exit.
+     */
+    public Direction getExit(int index) {
+        return exits[index];
     }
 
     /**
-     * @return The map of connections (Direction -> Room).
+     * Used for random walks: picking a neighbour is a single array read.
+     * @param index An exit index between 0 and getExitCount() - 1.
+     * @return The room behind that exit.
      */
-    public Map<String, Room> getConnections() {
-        return connections;
+    public Room getAdjacentRoom(int index) {
+        return adjacentRooms[index];
+    }
+
+    /**
+     * @return The list of boxes in the room.
+     */
+    public List<Box> getBoxes() {
+        return boxes;
     }
 
     /**
@@ -123,6 +244,34 @@ public class Room {
         return featureItem;
     }
 
+    /**
+     * @return What the room's feature does (e.g. the hidden exit), or null if it has none.
+     */
+    public Feature getFeature() {
+        return feature;
+    }
+
+    /**
+     * @return The floor of the room.
+     */
+    public int getFloor() {
+        return floor;
+    }
+
+    /**
+     * @return The X-coordinate on the map grid.
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * @return The Y-coordinate on the map grid.
+     */
+    public int getY() {
+        return y;
+    }
+
     /**
      * @return The name of the room.
      */
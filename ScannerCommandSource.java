@@ -0,0 +1,40 @@
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+/**
+ * Reads player commands line by line from an input stream (the console by default).
+ */
+public class ScannerCommandSource implements CommandSource {
+    private Scanner scanner;
+
+    /**
+     * Constructs a command source over the given stream.
+     * @param in The stream to read commands from.
+     */
+    public ScannerCommandSource(InputStream in) {
+        this.scanner = new Scanner(in);
+    }
+
+    /**
+     * Flushes the game's pending output so the prompt is visible, then waits for a line.
+     * @return The next line typed by the player.
+     * @throws NoSuchElementException If the input has ended.
+     * @throws UncheckedIOException If reading failed, e.g. with a SocketTimeoutException when a
+     *                              socket's read timeout expired.
+     */
+    @Override
+    public String nextLine(Game game) {
+        game.getOut().flush();
+        try {
+            return scanner.nextLine();
+        } catch (NoSuchElementException e) {
+            // Scanner reports a failed read as the end of input; surface the cause instead.
+            if (scanner.ioException() != null) {
+                throw new UncheckedIOException(scanner.ioException());
+            }
+            throw e;
+        }
+    }
+}
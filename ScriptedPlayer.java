@@ -0,0 +1,100 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A simple automated player used by the headless simulation.
+ * It tries to win whenever it stands in the right room with enough items, otherwise it
+ * opens a random unopened box or walks through a random exit.
+ */
+public class ScriptedPlayer implements CommandSource {
+    private Deque<String> pending = new ArrayDeque<>();
+    private SplittableRandom random;
+    private String[] idStrings = new String[0];
+
+    /**
+     * Constructs a scripted player.
+     * @param random The generator for the player's own decisions.
+     */
+    public ScriptedPlayer(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * Answers follow-up prompts (direction, box ID, item name) queued by the last action,
+     * or decides on a new action.
+     * @return The next command.
+     */
+    @Override
+    public String nextLine(Game game) {
+        if (!pending.isEmpty()) {
+            return pending.poll();
+        }
+
+        Player player = game.getPlayer();
+        Room room = player.getCurrentRoom();
+        Feature feature = room.getFeature();
+
+        if (feature != null) {
+            if (feature.isExit() && player.countItemOfType(Password.class) >= 3) {
+                return useFirst(player, Password.class);
+            }
+            if (feature.allowsExorcism() && player.countItemOfType(BoxGirlWeakness.class) >= 2) {
+                return useFirst(player, BoxGirlWeakness.class);
+            }
+        }
+
+        List<Box> boxes = room.getBoxes();
+        int unopened = 0;
+        for (int i = 0; i < boxes.size(); i++) {
+            if (!boxes.get(i).isOpen()) {
+                unopened++;
+            }
+        }
+
+        int exitCount = room.getExitCount();
+        if (unopened > 0 && (exitCount == 0 || random.nextDouble() < 0.7)) {
+            int k = random.nextInt(unopened);
+            for (int i = 0; i < boxes.size(); i++) {
+                if (!boxes.get(i).isOpen() && k-- == 0) {
+                    pending.add(idString(boxes.get(i).getId()));
+                    break;
+                }
+            }
+            return "open box";
+        }
+        if (exitCount == 0) {
+            return "help";
+        }
+        pending.add(room.getExit(random.nextInt(exitCount)).name());
+        return "move";
+    }
+
+    /**
+     * Box IDs are answered as strings; they are cached so steady-state turns do not allocate.
+     * @param id The box ID.
+     * @return The decimal string for the ID.
+     */
+    private String idString(int id) {
+        if (id >= idStrings.length) {
+            idStrings = Arrays.copyOf(idStrings, Math.max(id + 1, idStrings.length * 2));
+        }
+        if (idStrings[id] == null) {
+            idStrings[id] = String.valueOf(id);
+        }
+        return idStrings[id];
+    }
+
+    /**
+     * Queues the name of the first inventory item of the given type and returns the use command.
+     */
+    private String useFirst(Player player, Class<? extends Item> type) {
+        Item item = player.getFirstItemOfType(type);
+        if (item != null) {
+            pending.add(item.getName());
+        }
+        return "use item";
+    }
+}
@@ -0,0 +1,196 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+/**
+ * Headless Monte Carlo simulation: plays many whole games with a scripted player and no
+ * console output, spread over every core, and reports win/loss/turn statistics.
+ */
+public class Simulation {
+    /** Discards all output without encoding it, so quiet games do not allocate when printing. */
+    static final PrintStream SILENT = new PrintStream(OutputStream.nullOutputStream()) {
+        @Override public void print(String s) {}
+        @Override public void print(char c) {}
+        @Override public void println() {}
+        @Override public void println(String s) {}
+        @Override public void println(Object o) {}
+        @Override public void flush() {}
+    };
+
+    /**
+     * Runs a simulation from the command line.
+     * Usage: java Simulation [games] [threads] [maxTurns] [seed] [hunt] [metrics] [bot=NAME]
+     * With "metrics" the games record into shared GameMetrics, registered over JMX and
+     * printed at the end. The bot is scripted (default), random, greedy or cautious.
+     */
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int maxTurns = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+        boolean hunting = false;
+        GameMetrics metrics = null;
+        String bot = "scripted";
+        for (int i = 4; i < args.length; i++) {
+            if (args[i].equalsIgnoreCase("hunt")) {
+                hunting = true;
+            } else if (args[i].equalsIgnoreCase("metrics")) {
+                metrics = new GameMetrics();
+                metrics.registerMBean("simulation");
+            } else if (args[i].startsWith("bot=")) {
+                bot = args[i].substring("bot=".length());
+                if (!bot.equals("scripted")) {
+                    newStrategy(bot, new SplittableRandom()); // fail fast on unknown names
+                }
+            }
+        }
+
+        long startTime = System.nanoTime();
+        SimulationStats stats = run(games, threads, maxTurns, seed, hunting, metrics, bot);
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        System.out.println(stats);
+        if (metrics != null) {
+            System.out.println(metrics.dump());
+        }
+        System.out.printf("Threads: %d, time: %.2f s, %.0f games/min%n", threads, seconds, stats.getGames() / seconds * 60);
+    }
+
+    /**
+     * Creates one of the baseline strategy bots.
+     * @param bot "random", "greedy" or "cautious".
+     * @param random The generator for the bot's decisions.
+     * @return A new strategy for one game.
+     */
+    public static PlayerStrategy newStrategy(String bot, SplittableRandom random) {
+        switch (bot) {
+            case "random": return new RandomStrategy(random);
+            case "greedy": return new GreedyExplorerStrategy(random);
+            case "cautious": return new CautiousStrategy(random);
+            default: throw new IllegalArgumentException("Unknown bot: " + bot);
+        }
+    }
+
+    /**
+     * Plays a batch of games in parallel.
+     * @param games The number of games to play.
+     * @param threads The number of worker threads.
+     * @param maxTurns The turn limit after which a game counts as unfinished.
+     * @param seed The base seed; game i is played from seed + i, so any single game can be replayed.
+     * @param hunting True to play with hunting Box Girls.
+     * @return The merged statistics of all games.
+     */
+    public static SimulationStats run(long games, int threads, int maxTurns, long seed, boolean hunting)
+            throws InterruptedException, ExecutionException {
+        return run(games, threads, maxTurns, seed, hunting, null);
+    }
+
+    /**
+     * Plays a batch of games in parallel, recording their turns in shared metrics.
+     * @param games The number of games to play.
+     * @param threads The number of worker threads.
+     * @param maxTurns The turn limit after which a game counts as unfinished.
+     * @param seed The base seed; game i is played from seed + i, so any single game can be replayed.
+     * @param hunting True to play with hunting Box Girls.
+     * @param metrics The metrics every game records to, or null.
+     * @return The merged statistics of all games.
+     */
+    public static SimulationStats run(long games, int threads, int maxTurns, long seed, boolean hunting,
+                                      GameMetrics metrics) throws InterruptedException, ExecutionException {
+        return run(games, threads, maxTurns, seed, hunting, metrics, "scripted");
+    }
+
+    /**
+     * Plays a batch of games in parallel with the given bot.
+     * @param games The number of games to play.
+     * @param threads The number of worker threads.
+     * @param maxTurns The turn limit after which a game counts as unfinished.
+     * @param seed The base seed; game i is played from seed + i, so any single game can be replayed.
+     * @param hunting True to play with hunting Box Girls.
+     * @param metrics The metrics every game records to, or null.
+     * @param bot The bot playing the games (see newStrategy).
+     * @return The merged statistics of all games.
+     */
+    public static SimulationStats run(long games, int threads, int maxTurns, long seed, boolean hunting,
+                                      GameMetrics metrics, String bot) throws InterruptedException, ExecutionException {
+        GameConfig config = new GameConfig();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> LongStream.range(0, games).parallel()
+                    .mapToObj(i -> playOne(seed + i, maxTurns, hunting, metrics, config, bot))
+                    .collect(SimulationStats::new, SimulationStats::record, SimulationStats::merge))
+                    .get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plays one silent game with a scripted player.
+     * The game and the scripted player get independent generators split from one root seed.
+     * @param seed The root seed of this game.
+     * @param maxTurns The turn limit.
+     * @param hunting True to play with hunting Box Girls.
+     * @return The game after it stopped.
+     */
+    public static Game playOne(long seed, int maxTurns, boolean hunting) {
+        return playOne(seed, maxTurns, hunting, null);
+    }
+
+    /**
+     * Plays one silent game with a scripted player, recording it in shared metrics.
+     * @param seed The root seed of this game.
+     * @param maxTurns The turn limit.
+     * @param hunting True to play with hunting Box Girls.
+     * @param metrics The metrics to record to, or null.
+     * @return The game after it stopped.
+     */
+    public static Game playOne(long seed, int maxTurns, boolean hunting, GameMetrics metrics) {
+        return playOne(seed, maxTurns, hunting, metrics, new GameConfig());
+    }
+
+    /**
+     * Plays one silent game with a scripted player and the given balance parameters.
+     * @param seed The root seed of this game.
+     * @param maxTurns The turn limit.
+     * @param hunting True to play with hunting Box Girls.
+     * @param metrics The metrics to record to, or null.
+     * @param config The balance parameters.
+     * @return The game after it stopped.
+     */
+    public static Game playOne(long seed, int maxTurns, boolean hunting, GameMetrics metrics, GameConfig config) {
+        return playOne(seed, maxTurns, hunting, metrics, config, "scripted");
+    }
+
+    /**
+     * Plays one silent game with the given bot and balance parameters.
+     * @param seed The root seed of this game.
+     * @param maxTurns The turn limit.
+     * @param hunting True to play with hunting Box Girls.
+     * @param metrics The metrics to record to, or null.
+     * @param config The balance parameters.
+     * @param bot The bot playing the game (see newStrategy).
+     * @return The game after it stopped.
+     */
+    public static Game playOne(long seed, int maxTurns, boolean hunting, GameMetrics metrics, GameConfig config,
+                               String bot) {
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom botRandom = root.split();
+        Game game;
+        if (bot.equals("scripted")) {
+            game = new Game(new ScriptedPlayer(botRandom), SILENT, root.nextLong());
+        } else {
+            game = new Game(null, SILENT, root.nextLong());
+            game.setStrategy(newStrategy(bot, botRandom));
+        }
+        game.setQuiet(true);
+        game.setHuntingMode(hunting);
+        game.setMetrics(metrics);
+        game.setConfig(config);
+        game.simulate(maxTurns);
+        return game;
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Win/loss/turn-count totals for a batch of simulated games. Not thread-safe: each worker
+ * fills its own instance and the instances are merged at the end.
+ */
+public class SimulationStats {
+    private long games;
+    private long wins;
+    private long losses;
+    private long unfinished;
+    private long totalTurns;
+    private long winTurns;
+    private int minTurns = Integer.MAX_VALUE;
+    private int maxTurns;
+
+    /**
+     * Records the outcome of one finished (or abandoned) game.
+     * @param game The game after it stopped running.
+     */
+    public void record(Game game) {
+        int turns = game.getTurnCount();
+        games++;
+        totalTurns += turns;
+        minTurns = Math.min(minTurns, turns);
+        maxTurns = Math.max(maxTurns, turns);
+        if (!game.isGameOver()) {
+            unfinished++;
+        } else if (game.isWin()) {
+            wins++;
+            winTurns += turns;
+        } else {
+            losses++;
+        }
+    }
+
+    /**
+     * Adds the totals of another batch into this one.
+     * @param other The batch to merge.
+     */
+    public void merge(SimulationStats other) {
+        games += other.games;
+        wins += other.wins;
+        losses += other.losses;
+        unfinished += other.unfinished;
+        totalTurns += other.totalTurns;
+        winTurns += other.winTurns;
+        minTurns = Math.min(minTurns, other.minTurns);
+        maxTurns = Math.max(maxTurns, other.maxTurns);
+    }
+
+    /**
+     * @return The number of games recorded.
+     */
+    public long getGames() { return games; }
+
+    /**
+     * @return The fraction of recorded games that ended in a victory.
+     */
+    public double getWinRate() {
+        return games == 0 ? 0 : (double) wins / games;
+    }
+
+    /**
+     * @return The average number of turns per game.
+     */
+    public double getAverageTurns() {
+        return games == 0 ? 0 : (double) totalTurns / games;
+    }
+
+    /**
+     * @return The average number of turns of the games that were won.
+     */
+    public double getAverageTurnsToWin() {
+        return wins == 0 ? 0 : (double) winTurns / wins;
+    }
+
+    /**
+     * @return The fraction of recorded games stopped by the turn limit.
+     */
+    public double getUnfinishedRate() {
+        return games == 0 ? 0 : (double) unfinished / games;
+    }
+
+    /**
+     * @return A multi-line summary of the batch.
+     */
+    @Override
+    public String toString() {
+        return "Games:       " + games + "\n"
+             + "Wins:        " + wins + String.format(" (%.2f%%)", 100 * getWinRate()) + "\n"
+             + "Losses:      " + losses + "\n"
+             + "Unfinished:  " + unfinished + "\n"
+             + String.format("Avg turns:   %.2f (min %d, max %d)%n", getAverageTurns(), games == 0 ? 0 : minTurns, maxTurns)
+             + String.format("Avg turns to win: %.2f", getAverageTurnsToWin());
+    }
+}
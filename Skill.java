@@ -0,0 +1,48 @@
+/**
+ * The skills a manuscript can unlock for the Box Girls. Each has the name the player sees,
+ * which is also how the content file, the journal and the metrics refer to it.
+ */
+public enum Skill {
+    /** She moves into the player's room. */
+    RIGHT_BESIDE_YOU("Right Beside You"),
+    /** The boxes of the player's room are shuffled and closed. */
+    MOVING_AROUND("Moving Around"),
+    /** The player must open a box of the room, a manuscript if there is one. */
+    I_WANT_TO_OPEN_IT("I Want to Open It"),
+    /** She steals a weakness and hides it in a random free box. */
+    GIVE_IT_TO_ME("Give It to Me"),
+    /** Announces stuck doors (no effect on movement). */
+    LOCKED_DOOR("Locked Door"),
+    /** Releases her sister when the player opens the manuscript; nothing when activated. */
+    SISTER("Box Girl");
+
+    private static final Skill[] VALUES = values();
+
+    private final String displayName;
+
+    Skill(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * @return The name of the skill, e.g. "Right Beside You".
+     */
+    public String getName() {
+        return displayName;
+    }
+
+    /**
+     * Looks up a skill by its name, ignoring case and surrounding spaces.
+     * @param name The name, e.g. "Right Beside You".
+     * @return The skill, or null if there is none of that name.
+     */
+    public static Skill parse(String name) {
+        String trimmed = name.trim();
+        for (Skill skill : VALUES) {
+            if (skill.displayName.equalsIgnoreCase(trimmed)) {
+                return skill;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,17 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for BoxGirl.activateSkill.
+ */
+@Name("boxgirl.SkillActivation")
+@Label("Skill Activation")
+@Category("Box Girl")
+@Description("A Box Girl activating one of her unlocked skills")
+public class SkillActivationEvent extends Event {
+    @Label("Skill")
+    String skill;
+}
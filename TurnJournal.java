@@ -0,0 +1,55 @@
+/**
+ * Receives every player command and random outcome of a game, in the order they happen.
+ * JournalWriter appends them to a file; JournalReplayer checks them against a recording.
+ */
+public interface TurnJournal {
+
+    /**
+     * Called once when a classic game has been set up.
+     * @param seed The game's seed.
+     * @param huntingMode True if the Box Girls hunt the player.
+     * @param config The game's balance parameters.
+     */
+    void recordStart(long seed, boolean huntingMode, GameConfig config);
+
+    /**
+     * Called for every line the game reads from its command source.
+     * @param line The line exactly as it was read.
+     */
+    void recordCommand(String line);
+
+    /**
+     * Called for every action chosen by a player strategy.
+     * @param action The typed action, or null if the strategy chose none.
+     */
+    void recordAction(PlayerAction action);
+
+    /**
+     * Called when a Box Girl's passive trigger picks one of her unlocked skills.
+     * @param girl The Box Girl's number (see BoxGirl.getNumber).
+     * @param skillName The name of the activated skill.
+     */
+    void recordSkill(int girl, String skillName);
+
+    /**
+     * Called when a Box Girl's move has settled.
+     * @param girl The Box Girl's number (see BoxGirl.getNumber).
+     * @param roomIndex The index of the room she ended up in.
+     * @param boxId The ID of the box she hides in, or 0 if she found none.
+     */
+    void recordMove(int girl, int roomIndex, int boxId);
+
+    /**
+     * Called when a turn, including the Box Girls' passive triggers, is complete.
+     * @param turnCount The number of turns played so far.
+     */
+    void recordTurnEnd(int turnCount);
+
+    /**
+     * Called when the game loop stops, either because the game is over or it ran out of turns.
+     * @param isGameOver True if the game ended.
+     * @param isWin True if the player won.
+     * @param turnCount The number of turns played.
+     */
+    void recordEnd(boolean isGameOver, boolean isWin, int turnCount);
+}
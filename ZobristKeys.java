@@ -0,0 +1,130 @@
+import java.util.List;
+
+/**
+ * The 64-bit Zobrist keys of the game state. The state key of a game is the XOR of one key per
+ * fact (the player is in room r, box b is open, box b holds item i, the player holds a k-th
+ * item named n, Box Girl g is in room r, ...), so every change updates it in O(1) by XORing out the old fact
+ * and XORing in the new one. GameMap holds the running key; Box, Player and BoxGirl keep it
+ * current as they change.
+ *
+ * Keys are derived from the indexes and item names with a SplitMix64 finalizer rather than
+ * drawn from a random table, so equal states get equal keys in every game (e.g. the separate
+ * games of the MCTS workers), and items with the same name, such as the "Empty Box" markers,
+ * are interchangeable.
+ */
+public final class ZobristKeys {
+    private static final long PLAYER_ROOM = 1;
+    private static final long HELD = 2;
+    private static final long BOX_OPEN = 3;
+    private static final long BOX_CONTENT = 4;
+    private static final long BOX_OCCUPIED = 5;
+    private static final long GIRL_ROOM = 6;
+    private static final long GIRL_SKILL = 7;
+
+    private ZobristKeys() {}
+
+    /**
+     * @param room The player's room.
+     * @return The key of the player being in that room.
+     */
+    public static long playerRoom(Room room) {
+        return mix(PLAYER_ROOM, room.getIndex(), 0);
+    }
+
+    /**
+     * Held items are keyed by their case-folded name and by how many items of that name the
+     * player already holds, so two copies of a name (e.g. two "Empty Box" markers) do not
+     * cancel each other out, while copies remain interchangeable.
+     * @param nameHash The item's name hash (see ItemCatalogue.nameHash).
+     * @param copy The number of other held items with that name, from 0.
+     * @return The key of the player holding a copy-th item of that name.
+     */
+    public static long held(int nameHash, int copy) {
+        return mix(HELD, nameHash, copy);
+    }
+
+    /**
+     * @param id The box ID.
+     * @param open True if the box is open.
+     * @param content The item inside, or null.
+     * @param occupied True if a Box Girl hides inside.
+     * @return The combined key of the box's state; 0 for a closed, empty, unoccupied box.
+     */
+    public static long box(int id, boolean open, Item content, boolean occupied) {
+        long key = 0;
+        if (open) key ^= mix(BOX_OPEN, id, 0);
+        if (content != null) key ^= mix(BOX_CONTENT, id, content.getName().hashCode());
+        if (occupied) key ^= mix(BOX_OCCUPIED, id, 0);
+        return key;
+    }
+
+    /**
+     * @param girl The Box Girl's number (see BoxGirl.getNumber).
+     * @param room The room she is in.
+     * @return The key of that Box Girl being in that room.
+     */
+    public static long girlRoom(int girl, Room room) {
+        return mix(GIRL_ROOM, girl, room.getIndex());
+    }
+
+    /**
+     * Skills are keyed by their position in the unlock order too, so the two identical
+     * "Right Beside You" manuscripts do not cancel each other out. The position and the Box
+     * Girl's number each get 32 bits, so no two hunters' skills share a key however many
+     * hunters there are.
+     * @param girl The Box Girl's number.
+     * @param position The position of the skill in her unlock order.
+     * @param skill A manuscript whose skill she has unlocked.
+     * @return The key of that Box Girl having that skill at that position.
+     */
+    public static long girlSkill(int girl, int position, Item skill) {
+        return mix(GIRL_SKILL, ((long) position << 32) | girl, skill.getName().hashCode());
+    }
+
+    /**
+     * Computes the state key of a game from scratch. The running key (Game.getStateKey) must
+     * always equal it; this is for checks and for states built without the usual setters.
+     * @param game An initialized game.
+     * @return The state key.
+     */
+    public static long compute(Game game) {
+        long key = 0;
+        List<Box> boxes = game.getMap().getAllBoxes();
+        for (int i = 0; i < boxes.size(); i++) {
+            Box box = boxes.get(i);
+            key ^= box(box.getId(), box.isOpen(), box.getContent(), box.getHiddenOccupant() != null);
+        }
+        Player player = game.getPlayer();
+        key ^= playerRoom(player.getCurrentRoom());
+        ItemCatalogue catalogue = game.getMap().getCatalogue();
+        int[] copies = new int[catalogue.getNameSlotCount()];
+        for (int i = 0; i < player.getInventory().size(); i++) {
+            int id = player.getItemId(i);
+            key ^= held(catalogue.nameHash(id), copies[catalogue.nameSlot(id)]++);
+        }
+        HunterRegistry hunters = game.getHunters();
+        for (int i = 0; i < hunters.size(); i++) {
+            key ^= girl(hunters.get(i));
+        }
+        return key;
+    }
+
+    private static long girl(BoxGirl girl) {
+        long key = girlRoom(girl.getNumber(), girl.getCurrentRoom());
+        List<Manuscript> skills = girl.getUnlockedSkills();
+        for (int i = 0; i < skills.size(); i++) {
+            key ^= girlSkill(girl.getNumber(), i, skills.get(i));
+        }
+        return key;
+    }
+
+    /**
+     * The SplitMix64 finalizer over a fact and its two operands.
+     */
+    private static long mix(long fact, long a, long b) {
+        long z = fact * 0x9E3779B97F4A7C15L + a * 0xC2B2AE3D27D4EB4FL + b * 0x165667B19E3779F9L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}